@@ -0,0 +1,87 @@
+package com.example.shop.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сравнение двух JSON-отчётов JMH (-rf json): прирост/падение score каждого бенчмарка
+ * с одинаковыми параметрами. Регрессия — ухудшение больше порога (по умолчанию 10%) с учётом режима:
+ * для thrpt хуже — меньше, для avgt/sample/ss — больше. При регрессиях код возврата 1.
+ * <p>
+ * Запуск: {@code mvn -Pbenchmarks test-compile exec:exec@jmh-compare -Djmh.baseline=base.json
+ * -Djmh.result=target/jmh-result.json [-Djmh.threshold=10]}
+ */
+public final class BenchmarkComparison {
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+
+        Map<String, Result> baseline = read(new File(args[0]));
+        Map<String, Result> current = read(new File(args[1]));
+
+        List<String> regressions = new ArrayList<>();
+        System.out.printf("%-90s %14s %14s %9s%n", "Benchmark", "baseline", "current", "change");
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s  (new)%n", entry.getKey(), "-", now.score(), "");
+                continue;
+            }
+
+            double change = (now.score() - before.score()) / before.score() * 100;
+            // для throughput рост score — улучшение, для остальных режимов — ухудшение
+            double worse = "thrpt".equals(now.mode()) ? -change : change;
+            boolean regression = worse > threshold;
+            if (regression) {
+                regressions.add(entry.getKey());
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%% %s%s%n", entry.getKey(), before.score(), now.score(),
+                    change, now.unit(), regression ? "  REGRESSION" : "");
+        }
+
+        if (!regressions.isEmpty()) {
+            System.out.printf("%nРегрессий больше %.1f%%: %d%n", threshold, regressions.size());
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Result> read(File file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(run.get("benchmark").asText());
+            JsonNode params = run.get("params");
+            if (params != null) {
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> param = fields.next();
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+                }
+            }
+            JsonNode metric = run.get("primaryMetric");
+            results.put(key.toString(), new Result(
+                    run.get("mode").asText(),
+                    metric.get("score").asDouble(),
+                    metric.get("scoreUnit").asText()));
+        }
+        return results;
+    }
+
+    private record Result(String mode, double score, String unit) {
+    }
+}
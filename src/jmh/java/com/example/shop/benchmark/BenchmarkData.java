@@ -0,0 +1,72 @@
+package com.example.shop.benchmark;
+
+import com.example.shop.entity.Category;
+import com.example.shop.entity.Order;
+import com.example.shop.entity.OrderItem;
+import com.example.shop.entity.Product;
+import com.example.shop.entity.User;
+import com.example.shop.entity.enums.OrderStatus;
+import com.example.shop.entity.enums.Role;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Детерминированные тестовые данные для бенчмарков: товары с реалистичными названиями и ценами,
+ * заказ с заданным числом позиций.
+ */
+final class BenchmarkData {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 3, 15, 12, 30, 45);
+
+    private BenchmarkData() {
+    }
+
+    static List<Product> products(int count) {
+        Category category = new Category("Смартфоны", "Смартфоны и аксессуары");
+        category.setId(7L);
+
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Product product = new Product(
+                    "Смартфон Galaxy S24 Ultra 12/256GB, вариант " + i,
+                    "Флагманский смартфон с экраном 6.8\", камерой 200 Мп и аккумулятором 5000 мА·ч",
+                    new BigDecimal("129990.00").add(BigDecimal.valueOf(i * 10L)),
+                    42 + i,
+                    category);
+            product.setId(10_000L + i);
+            product.setCreatedAt(CREATED_AT);
+            products.add(product);
+        }
+        return products;
+    }
+
+    static Order order(int items) {
+        User user = new User("bench@example.com", "not-used", "Bench", Role.ROLE_USER);
+        user.setId(1L);
+
+        Order order = new Order();
+        order.setId(500_000L);
+        order.setUser(user);
+        order.setStatus(OrderStatus.NEW);
+        order.setCreatedAt(CREATED_AT);
+        order.setUpdatedAt(CREATED_AT);
+
+        List<OrderItem> orderItems = new ArrayList<>(items);
+        BigDecimal total = BigDecimal.ZERO;
+        for (Product product : products(items)) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProduct(product);
+            item.setPrice(product.getPrice());
+            item.setQuantity(1 + (int) (product.getId() % 3));
+            orderItems.add(item);
+            total = total.add(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+        }
+        order.setItems(orderItems);
+        order.setTotalPrice(total);
+        return order;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.shop.benchmark;
+
+import com.example.shop.cache.VersionedSmileRedisSerializer;
+import com.example.shop.dto.product.ProductDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение сериализаторов значений кэша на типичном ProductDto:
+ * время сериализации/десериализации и размер payload (печатается при старте каждого форка).
+ * <p>
+ * Запуск: {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.args="CacheCodec"}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheCodecBenchmark {
+
+    @Param({"jdk", "json", "smile"})
+    public String codec;
+
+    private RedisSerializer<Object> serializer;
+    private ProductDto product;
+    private byte[] serialized;
+
+    @Setup
+    public void setUp() {
+        serializer = switch (codec) {
+            case "jdk" -> RedisSerializer.java();
+            case "json" -> new GenericJackson2JsonRedisSerializer();
+            case "smile" -> new VersionedSmileRedisSerializer().register(ProductDto.class, "product", 1);
+            default -> throw new IllegalArgumentException("Unknown codec: " + codec);
+        };
+
+        product = new ProductDto();
+        product.setId(12345L);
+        product.setName("Смартфон Galaxy S24 Ultra 12/256GB");
+        product.setDescription("Флагманский смартфон с экраном 6.8\", камерой 200 Мп и аккумулятором 5000 мА·ч");
+        product.setPrice(new BigDecimal("129990.00"));
+        product.setStock(42);
+        product.setCategoryId(7L);
+
+        serialized = serializer.serialize(product);
+        System.out.printf("%n[%s] payload size: %d bytes%n", codec, serialized.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(product);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(serialized);
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.shop.benchmark;
+
+import com.example.shop.ShopApplication;
+import com.example.shop.security.JwtService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузка на /api/products и /api/orders/my: платформенные потоки Tomcat против виртуальных
+ * (вместе с ConcurrencyLimitFilter, который включается с виртуальными потоками).
+ * <p>
+ * Приложение поднимается в том же форке, что и генератор нагрузки, на случайном порту; кэши и брокер
+ * отключены, чтобы каждый запрос шёл в БД. Нужен PostgreSQL из application.yml с демо-данными (V3).
+ * Throughput — запросов в секунду, SampleTime — распределение задержек (p0.99 в отчёте);
+ * счётчики ok/unavailable показывают, сколько запросов получили 503 от ограничителя.
+ * Число клиентов — {@code -t} (по умолчанию 256, больше 200 потоков Tomcat по умолчанию).
+ * <p>
+ * Запуск: {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.args="HttpLoad"}
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(256)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HttpLoadBenchmark {
+
+    private static final String USER_EMAIL = "user@example.com";
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        // аргументы командной строки перекрывают application.yml (в отличие от properties(...))
+        context = new SpringApplicationBuilder(ShopApplication.class).run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + "virtual".equals(threads),
+                "--spring.cache.type=none",
+                "--shop.cache.product-pages.enabled=false",
+                "--shop.outbox.relay.enabled=false",
+                "--shop.order-events.consumer.enabled=false",
+                "--shop.checkout.async.worker.enabled=false",
+                "--spring.autoconfigure.exclude=" +
+                        "org.springframework.boot.autoconfigure.amqp.RabbitAutoConfiguration," +
+                        "org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration," +
+                        "org.springframework.boot.autoconfigure.data.redis.RedisRepositoriesAutoConfiguration",
+                "--logging.level.com.example.shop=WARN"
+        );
+
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        token = context.getBean(JwtService.class)
+                .generateToken(context.getBean(UserDetailsService.class).loadUserByUsername(USER_EMAIL));
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public int products(Responses responses) throws IOException, InterruptedException {
+        int page = ThreadLocalRandom.current().nextInt(5);
+        return responses.count(send("/api/products?page=" + page + "&size=20"));
+    }
+
+    @Benchmark
+    public int myOrders(Responses responses) throws IOException, InterruptedException {
+        return responses.count(send("/api/orders/my?page=0&size=20"));
+    }
+
+    private int send(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * Ответы по кодам: сколько запросов обслужено и сколько отклонено ограничителем (503).
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Responses {
+
+        public long ok;
+        public long unavailable;
+        public long other;
+
+        int count(int status) {
+            if (status == 200) {
+                ok++;
+            } else if (status == 503) {
+                unavailable++;
+            } else {
+                other++;
+            }
+            return status;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.shop.benchmark;
+
+import com.example.shop.dto.order.CreateOrderRequestDto;
+import com.example.shop.dto.order.OrderDto;
+import com.example.shop.dto.product.ProductDto;
+import com.example.shop.mapper.OrderMapperImpl;
+import com.example.shop.mapper.ProductMapperImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson на телах ответов и запросов API: страница товаров (Page&lt;ProductDto&gt; — как её отдаёт
+ * GET /api/products), заказ с {@code items} позициями и разбор тела POST /api/orders.
+ * ObjectMapper настроен как в приложении (модули Jackson2ObjectMapperBuilder, даты строками).
+ * Размер каждого JSON печатается при старте форка.
+ * <p>
+ * Запуск: {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.args="JsonSerialization"}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({"20", "100"})
+    public int items;
+
+    private ObjectMapper objectMapper;
+    private Page<ProductDto> productPage;
+    private OrderDto order;
+    private byte[] createOrderJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        ProductMapperImpl productMapper = new ProductMapperImpl();
+        List<ProductDto> content = BenchmarkData.products(items).stream()
+                .map(productMapper::toDto)
+                .toList();
+        productPage = new PageImpl<>(content, PageRequest.of(0, items), 10_000);
+        order = new OrderMapperImpl().toDto(BenchmarkData.order(items));
+
+        CreateOrderRequestDto request = new CreateOrderRequestDto();
+        request.setItems(order.getItems().stream()
+                .map(line -> {
+                    CreateOrderRequestDto.Item item = new CreateOrderRequestDto.Item();
+                    item.setProductId(line.getProductId());
+                    item.setQuantity(line.getQuantity());
+                    return item;
+                })
+                .toList());
+        createOrderJson = objectMapper.writeValueAsBytes(request);
+
+        System.out.printf("%n[items=%d] productPage: %d bytes, order: %d bytes, createOrder: %d bytes%n",
+                items, writeProductPage().length, writeOrder().length, createOrderJson.length);
+    }
+
+    @Benchmark
+    public byte[] writeProductPage() throws IOException {
+        return objectMapper.writeValueAsBytes(productPage);
+    }
+
+    @Benchmark
+    public byte[] writeOrder() throws IOException {
+        return objectMapper.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public CreateOrderRequestDto readCreateOrder() throws IOException {
+        return objectMapper.readValue(createOrderJson, CreateOrderRequestDto.class);
+    }
+}
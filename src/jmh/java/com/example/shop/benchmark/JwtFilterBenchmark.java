@@ -0,0 +1,101 @@
+package com.example.shop.benchmark;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.example.shop.entity.User;
+import com.example.shop.entity.enums.Role;
+import com.example.shop.repository.UserRepository;
+import com.example.shop.security.JwtAuthenticationFilter;
+import com.example.shop.security.JwtService;
+import com.example.shop.security.PrincipalCache;
+import com.example.shop.security.UserDetailsImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость JWT-аутентификации одного запроса.
+ * <ul>
+ *     <li>{@code legacyDoubleVerify} — прежняя схема: два раза JWT.require(...).build().verify(token)
+ *     (без учёта SELECT в users, который она тоже делала);</li>
+ *     <li>{@code filter} — JwtAuthenticationFilter целиком: tokenCache=0 — одна проверка подписи на запрос,
+ *     tokenCache=10000 — подпись проверена один раз, дальше только SHA-256 и поиск в кэше.</li>
+ * </ul>
+ * Запуск: {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.args="JwtFilter"}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret";
+
+    @Param({"0", "10000"})
+    public long tokenCache;
+
+    private Algorithm algorithm;
+    private String token;
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        algorithm = Algorithm.HMAC256(SECRET);
+        JwtService jwtService = new JwtService(SECRET, 3_600_000, tokenCache, new SimpleMeterRegistry());
+
+        User user = new User("bench@example.com", "not-used", "Bench", Role.ROLE_USER);
+        user.setId(1L);
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        PrincipalCache principalCache = new PrincipalCache(userRepository, new SimpleMeterRegistry(), 1000, Duration.ofMinutes(5));
+        filter = new JwtAuthenticationFilter(jwtService, Mockito.mock(UserDetailsService.class), principalCache);
+
+        token = jwtService.generateToken(UserDetailsImpl.fromUser(user));
+        request = new MockHttpServletRequest("GET", "/api/orders/my");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    }
+
+    @Benchmark
+    public Object legacyDoubleVerify() {
+        DecodedJWT first = JWT.require(algorithm).build().verify(token);
+        DecodedJWT second = JWT.require(algorithm).build().verify(token);
+        return first.getSubject().equals(second.getSubject());
+    }
+
+    @Benchmark
+    public Object filter() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+            request.removeAttribute(JwtAuthenticationFilter.class.getName() + ".FILTERED");
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.shop.benchmark;
+
+import com.example.shop.entity.User;
+import com.example.shop.entity.enums.Role;
+import com.example.shop.security.JwtClaims;
+import com.example.shop.security.JwtService;
+import com.example.shop.security.UserDetailsImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtService без фильтра: выпуск токена (при логине), проверка подписи (кэш проверенных токенов выключен)
+ * и повторный parse того же токена из кэша. Фильтр целиком — в {@link JwtFilterBenchmark}.
+ * <p>
+ * Запуск: {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.args="JwtServiceBenchmark"}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret";
+
+    private JwtService uncached;
+    private JwtService cached;
+    private UserDetailsImpl principal;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        uncached = new JwtService(SECRET, 3_600_000, 0, new SimpleMeterRegistry());
+        cached = new JwtService(SECRET, 3_600_000, 10_000, new SimpleMeterRegistry());
+
+        User user = new User("bench@example.com", "not-used", "Bench", Role.ROLE_USER);
+        user.setId(1L);
+        principal = UserDetailsImpl.fromUser(user);
+        token = uncached.generateToken(principal);
+        cached.parse(token);
+    }
+
+    @Benchmark
+    public String generate() {
+        return uncached.generateToken(principal);
+    }
+
+    @Benchmark
+    public JwtClaims verify() {
+        return uncached.parse(token);
+    }
+
+    @Benchmark
+    public JwtClaims parseCached() {
+        return cached.parse(token);
+    }
+}
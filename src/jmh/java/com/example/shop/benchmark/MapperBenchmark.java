@@ -0,0 +1,71 @@
+package com.example.shop.benchmark;
+
+import com.example.shop.dto.order.OrderDto;
+import com.example.shop.dto.product.ProductDto;
+import com.example.shop.entity.Order;
+import com.example.shop.entity.Product;
+import com.example.shop.mapper.OrderMapper;
+import com.example.shop.mapper.OrderMapperImpl;
+import com.example.shop.mapper.ProductMapper;
+import com.example.shop.mapper.ProductMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сгенерированные MapStruct-мапперы: заказ с {@code items} позициями целиком (OrderMapper.toDto),
+ * один товар и страница из {@code items} товаров (ProductMapper.toDto).
+ * <p>
+ * Запуск: {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.args="MapperBenchmark"}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    @Param({"1", "20", "500"})
+    public int items;
+
+    private final OrderMapper orderMapper = new OrderMapperImpl();
+    private final ProductMapper productMapper = new ProductMapperImpl();
+
+    private Order order;
+    private List<Product> products;
+
+    @Setup
+    public void setUp() {
+        order = BenchmarkData.order(items);
+        products = BenchmarkData.products(items);
+    }
+
+    @Benchmark
+    public OrderDto orderToDto() {
+        return orderMapper.toDto(order);
+    }
+
+    @Benchmark
+    public ProductDto productToDto() {
+        return productMapper.toDto(products.get(0));
+    }
+
+    @Benchmark
+    public List<ProductDto> productPageToDto() {
+        return products.stream()
+                .map(productMapper::toDto)
+                .toList();
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.shop.benchmark;
+
+import com.example.shop.ShopApplication;
+import com.example.shop.entity.Category;
+import com.example.shop.entity.Order;
+import com.example.shop.entity.OrderItem;
+import com.example.shop.entity.Product;
+import com.example.shop.entity.User;
+import com.example.shop.entity.enums.OrderStatus;
+import com.example.shop.metrics.QueryCounter;
+import com.example.shop.repository.CategoryRepository;
+import com.example.shop.repository.OrderRepository;
+import com.example.shop.repository.ProductRepository;
+import com.example.shop.repository.UserRepository;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Вставка заказа с {@code items} позициями через JPA — как в OrderServiceImpl.create (saveAndFlush заказа
+ * с каскадом на позиции), без списания остатков и outbox. Каждая транзакция откатывается, данные не растут.
+ * <ul>
+ *     <li>{@code batching=on} — текущая конфигурация: id из последовательностей (pooled-lo), JDBC batch
+ *     и reWriteBatchedInserts — заказ и все позиции за два INSERT;</li>
+ *     <li>{@code batching=off} — batch_size=1 и без переписывания батчей: по INSERT на позицию,
+ *     как было с IDENTITY-ключами (там ещё и RETURNING id на каждую строку).</li>
+ * </ul>
+ * Счётчик {@code statements} — SQL-выражений в секунду (QueryCounter): делённый на score, он даёт число
+ * обращений к БД на заказ, которое, в отличие от времени, не зависит от шума на машине.
+ * <p>
+ * Нужен PostgreSQL из application.yml с демо-пользователем (V3); товары для позиций создаются при старте
+ * и удаляются в конце. Для сравнения с версией до перехода на последовательности сохраните результат
+ * прогона на ней и сравните через {@code exec:exec@jmh-compare}.
+ * <p>
+ * Запуск: {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.args="OrderInsert"}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderInsertBenchmark {
+
+    private static final String USER_EMAIL = "user@example.com";
+
+    @Param({"1", "10", "100"})
+    public int items;
+
+    @Param({"on", "off"})
+    public String batching;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transactionTemplate;
+    private OrderRepository orderRepository;
+    private User user;
+    private Category category;
+    private List<Product> products;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        boolean on = "on".equals(batching);
+        context = new SpringApplicationBuilder(ShopApplication.class).run(
+                "--spring.main.web-application-type=none",
+                "--spring.jpa.properties.hibernate.jdbc.batch_size=" + (on ? 50 : 1),
+                "--spring.datasource.hikari.data-source-properties.reWriteBatchedInserts=" + on,
+                "--spring.cache.type=none",
+                "--shop.outbox.relay.enabled=false",
+                "--shop.order-events.consumer.enabled=false",
+                "--shop.checkout.async.worker.enabled=false",
+                "--spring.autoconfigure.exclude=" +
+                        "org.springframework.boot.autoconfigure.amqp.RabbitAutoConfiguration," +
+                        "org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration," +
+                        "org.springframework.boot.autoconfigure.data.redis.RedisRepositoriesAutoConfiguration",
+                "--logging.level.com.example.shop=WARN"
+        );
+
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        orderRepository = context.getBean(OrderRepository.class);
+        user = context.getBean(UserRepository.class).findByEmail(USER_EMAIL).orElseThrow();
+
+        category = context.getBean(CategoryRepository.class)
+                .save(new Category("Order insert " + UUID.randomUUID(), "OrderInsertBenchmark"));
+        products = context.getBean(ProductRepository.class).saveAll(IntStream.range(0, items)
+                .mapToObj(i -> new Product("Order insert " + i, null, new BigDecimal("99.90"), 1_000, category))
+                .toList());
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.getBean(ProductRepository.class).deleteAll(products);
+        context.getBean(CategoryRepository.class).delete(category);
+        context.close();
+    }
+
+    @Benchmark
+    public Long insertOrder(Statements statements) {
+        try (QueryCounter.Scope scope = QueryCounter.start()) {
+            Long id = insert();
+            statements.statements += scope.queries();
+            return id;
+        }
+    }
+
+    private Long insert() {
+        return transactionTemplate.execute(status -> {
+            Order order = new Order();
+            order.setUser(user);
+            order.setStatus(OrderStatus.NEW);
+            BigDecimal total = BigDecimal.ZERO;
+            for (Product product : products) {
+                OrderItem item = new OrderItem();
+                item.setOrder(order);
+                item.setProduct(product);
+                item.setPrice(product.getPrice());
+                item.setQuantity(1);
+                order.getItems().add(item);
+                total = total.add(product.getPrice());
+            }
+            order.setTotalPrice(total);
+
+            Long id = orderRepository.saveAndFlush(order).getId();
+            status.setRollbackOnly();
+            return id;
+        });
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Statements {
+
+        public long statements;
+    }
+}
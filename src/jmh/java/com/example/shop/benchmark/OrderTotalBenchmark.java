@@ -0,0 +1,79 @@
+package com.example.shop.benchmark;
+
+import com.example.shop.entity.OrderItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сумма заказа по позициям.
+ * <ul>
+ *     <li>{@code loop} — та же арифметика, что в OrderServiceImpl.newOrder: price * quantity и add в цикле;</li>
+ *     <li>{@code stream} — то же через stream().reduce;</li>
+ *     <li>{@code unscaledCents} — сложение в long копейках (цены в БД — NUMERIC(…, 2)) и один BigDecimal в конце.</li>
+ * </ul>
+ * Запуск: {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.args="OrderTotal"}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderTotalBenchmark {
+
+    private static final int PRICE_SCALE = 2;
+
+    @Param({"1", "20", "500"})
+    public int items;
+
+    private List<OrderItem> orderItems;
+
+    @Setup
+    public void setUp() {
+        orderItems = BenchmarkData.order(items).getItems();
+        if (loop().compareTo(unscaledCents()) != 0) {
+            throw new IllegalStateException("Суммы не совпадают");
+        }
+    }
+
+    @Benchmark
+    public BigDecimal loop() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderItem item : orderItems) {
+            BigDecimal lineTotal = item.getPrice()
+                    .multiply(BigDecimal.valueOf(item.getQuantity()));
+            total = total.add(lineTotal);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal stream() {
+        return orderItems.stream()
+                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Benchmark
+    public BigDecimal unscaledCents() {
+        long cents = 0;
+        for (OrderItem item : orderItems) {
+            long price = item.getPrice().setScale(PRICE_SCALE).unscaledValue().longValueExact();
+            cents = Math.addExact(cents, Math.multiplyExact(price, item.getQuantity()));
+        }
+        return BigDecimal.valueOf(cents, PRICE_SCALE);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.shop.benchmark;
+
+import com.example.shop.util.CursorUtil;
+import com.example.shop.util.PaginationUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор параметров пагинации на каждом запросе списка: PaginationUtil (offset-страницы)
+ * и кодирование/декодирование курсора keyset-пагинации (CursorUtil).
+ * <p>
+ * Запуск: {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.args="PaginationBenchmark"}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaginationBenchmark {
+
+    // значения приходят из query-параметров, поэтому боксинг Integer — часть реального пути
+    private Integer page;
+    private Integer size;
+    private LocalDateTime createdAt;
+    private Long id;
+    private String cursor;
+
+    @Setup
+    public void setUp() {
+        page = 3;
+        size = 50;
+        createdAt = LocalDateTime.of(2024, 3, 15, 12, 30, 45, 123_456_000);
+        id = 987_654L;
+        cursor = CursorUtil.encode(createdAt, id);
+    }
+
+    @Benchmark
+    public Pageable defaultPageable() {
+        return PaginationUtil.defaultPageable(page, size);
+    }
+
+    @Benchmark
+    public String encodeCursor() {
+        return CursorUtil.encode(createdAt, id);
+    }
+
+    @Benchmark
+    public CursorUtil.Cursor decodeCursor() {
+        return CursorUtil.decode(cursor);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.shop.cache;
+
+/**
+ * Рассылка инвалидаций L1 остальным узлам приложения.
+ */
+public interface CacheInvalidationPublisher {
+
+    void publishEvict(String cacheName, String key);
+
+    void publishClear(String cacheName);
+
+    /**
+     * Подписка локального (не управляемого CacheManager) кэша на инвалидации от других узлов.
+     */
+    void subscribe(String cacheName, Listener listener);
+
+    interface Listener {
+
+        void onEvict(String key);
+
+        void onClear();
+    }
+}
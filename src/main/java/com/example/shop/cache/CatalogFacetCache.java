@@ -0,0 +1,162 @@
+package com.example.shop.cache;
+
+import com.example.shop.repository.ProductRepositoryCustom.CatalogFacets;
+import com.example.shop.repository.ProductRepositoryCustom.CatalogFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Локальный кэш счётчиков фасетов каталога по ключу фильтра.
+ * <p>
+ * Фасеты без фильтров (и с одним широким фильтром) — это проход по всем активным товарам,
+ * а набор популярных фильтров невелик, поэтому счётчики переиспользуются между запросами.
+ * Любое изменение товара (добавление, правка цены или категории, деактивация) сбрасывает кэш целиком
+ * на всех узлах; остатки при заказах — как и в {@link ProductPageCache}, только по TTL.
+ * <p>
+ * Кэшируются только фильтры, цены которых совпадают с границами ценовых фасетов (shop.catalog.price-bounds):
+ * их набор конечен, а произвольные цены в ключе позволили бы вытеснить из кэша всё полезное.
+ * Фасеты по остальным ценам считаются запросом без кэша.
+ */
+@Slf4j
+@Component
+public class CatalogFacetCache implements CacheInvalidationPublisher.Listener {
+
+    public static final String CACHE_NAME = "catalogFacets";
+
+    private final boolean enabled;
+    private final Cache<CatalogFilter, CatalogFacets> facets;
+    private final ObjectProvider<CacheInvalidationPublisher> publisherProvider;
+    private final NavigableSet<BigDecimal> priceBounds = new TreeSet<>();
+
+    // запрос фасетов идёт вне Caffeine compute (секунда в блокировке бина — слишком долго);
+    // результат, загрузка которого пересеклась со сбросом, в кэш не попадает
+    private final ReadWriteLock invalidationLock = new ReentrantReadWriteLock();
+    private volatile long generation;
+
+    public CatalogFacetCache(ObjectProvider<CacheInvalidationPublisher> publisherProvider,
+                             MeterRegistry meterRegistry,
+                             @Value("${shop.catalog.price-bounds:0,1000,5000,10000,50000}") BigDecimal[] priceBounds,
+                             @Value("${shop.cache.catalog-facets.enabled:true}") boolean enabled,
+                             @Value("${shop.cache.catalog-facets.maximum-size:1000}") long maximumSize,
+                             @Value("${shop.cache.catalog-facets.ttl:30s}") Duration ttl) {
+        this.publisherProvider = publisherProvider;
+        this.enabled = enabled;
+        // TreeSet сравнивает через compareTo: 1000 и 1000.00 — одна граница
+        this.priceBounds.addAll(Arrays.asList(priceBounds));
+        this.facets = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, facets, CACHE_NAME);
+        log.info("Кэш фасетов каталога: enabled={}, maximumSize={}, ttl={}", enabled, maximumSize, ttl);
+    }
+
+    @PostConstruct
+    void subscribe() {
+        CacheInvalidationPublisher publisher = publisherProvider.getIfAvailable();
+        if (publisher != null) {
+            publisher.subscribe(CACHE_NAME, this);
+        }
+    }
+
+    public CatalogFacets get(CatalogFilter filter, Supplier<CatalogFacets> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        CatalogFilter key = cacheKey(filter);
+        if (key == null) {
+            return loader.get();
+        }
+        CatalogFacets cached = facets.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadGeneration = generation;
+        CatalogFacets loaded = loader.get();
+        store(key, loaded, loadGeneration);
+        return loaded;
+    }
+
+    public void clear() {
+        if (!enabled) {
+            return;
+        }
+        clearLocal();
+        CacheInvalidationPublisher publisher = publisherProvider.getIfAvailable();
+        if (publisher != null) {
+            publisher.publishClear(CACHE_NAME);
+        }
+    }
+
+    @Override
+    public void onEvict(String key) {
+        // ключи фильтров между узлами не передаются — любая инвалидация сбрасывает всё
+        clearLocal();
+    }
+
+    @Override
+    public void onClear() {
+        clearLocal();
+    }
+
+    /**
+     * Ключ с ценами, приведёнными к экземплярам границ фасетов, или null — цена не на границе, не кэшируем.
+     */
+    private CatalogFilter cacheKey(CatalogFilter filter) {
+        BigDecimal from = snap(filter.priceFrom());
+        BigDecimal to = snap(filter.priceTo());
+        if (from == null && filter.priceFrom() != null || to == null && filter.priceTo() != null) {
+            return null;
+        }
+        return new CatalogFilter(filter.categoryId(), from, to, filter.inStock());
+    }
+
+    private BigDecimal snap(BigDecimal price) {
+        if (price == null) {
+            return null;
+        }
+        BigDecimal bound = priceBounds.floor(price);
+        return bound != null && bound.compareTo(price) == 0 ? bound : null;
+    }
+
+    private void store(CatalogFilter key, CatalogFacets loaded, long loadGeneration) {
+        invalidationLock.readLock().lock();
+        try {
+            if (loadGeneration == generation) {
+                facets.put(key, loaded);
+            }
+        } finally {
+            invalidationLock.readLock().unlock();
+        }
+    }
+
+    private void clearLocal() {
+        invalidationLock.writeLock().lock();
+        try {
+            generation++;
+            facets.invalidateAll();
+            log.debug("Кэш фасетов каталога очищен");
+        } finally {
+            invalidationLock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.shop.cache;
+
+import com.example.shop.dto.product.ProductDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Локальный кэш страниц списка активных товаров (содержимое + total) по ключу (page, size, sort).
+ * <p>
+ * Инвалидация:
+ * <ul>
+ *     <li>изменение товара — удаляются только страницы, на которых он есть (обратный индекс productId -> страницы),
+ *     а также страницы с сортировкой по изменяемым полям — позиция товара в ней могла измениться;</li>
+ *     <li>добавление или деактивация товара — сдвигаются все страницы, кэш очищается целиком.</li>
+ * </ul>
+ * Остальные узлы получают инвалидацию через {@link CacheInvalidationPublisher} (если он есть)
+ * и применяют её к своему индексу.
+ * <p>
+ * Остатки (stock) при заказах страницы не сбрасывают: как и в кэше products, они актуализируются по TTL,
+ * а реальная проверка остатка выполняется при создании заказа.
+ */
+@Slf4j
+@Component
+public class ProductPageCache implements CacheInvalidationPublisher.Listener {
+
+    public static final String CACHE_NAME = "productPages";
+
+    private final boolean enabled;
+    private final Cache<PageKey, PageSnapshot> pages;
+    private final ConcurrentMap<Long, Set<PageKey>> pagesByProduct = new ConcurrentHashMap<>();
+    private final ObjectProvider<CacheInvalidationPublisher> publisherProvider;
+
+    // загрузка страницы и её запись в кэш не должны пересечься с инвалидацией — иначе в кэш попадёт устаревшая страница
+    private final ReadWriteLock invalidationLock = new ReentrantReadWriteLock();
+    private volatile long generation;
+
+    public ProductPageCache(ObjectProvider<CacheInvalidationPublisher> publisherProvider,
+                            MeterRegistry meterRegistry,
+                            @Value("${shop.cache.product-pages.enabled:true}") boolean enabled,
+                            @Value("${shop.cache.product-pages.maximum-size:1000}") long maximumSize,
+                            @Value("${shop.cache.product-pages.ttl:5m}") Duration ttl) {
+        this.publisherProvider = publisherProvider;
+        this.enabled = enabled;
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .removalListener(this::unindex)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, CACHE_NAME);
+        log.info("Кэш страниц товаров: enabled={}, maximumSize={}, ttl={}", enabled, maximumSize, ttl);
+    }
+
+    @PostConstruct
+    void subscribe() {
+        CacheInvalidationPublisher publisher = publisherProvider.getIfAvailable();
+        if (publisher != null) {
+            publisher.subscribe(CACHE_NAME, this);
+        }
+    }
+
+    public Page<ProductDto> get(Pageable pageable, Supplier<Page<ProductDto>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        PageKey key = PageKey.of(pageable);
+        PageSnapshot cached = pages.getIfPresent(key);
+        if (cached != null) {
+            return new PageImpl<>(cached.content(), pageable, cached.total());
+        }
+
+        long loadGeneration = generation;
+        Page<ProductDto> page = loader.get();
+        store(key, new PageSnapshot(page.getContent(), page.getTotalElements()), loadGeneration);
+        return page;
+    }
+
+    /**
+     * Товар изменён: сбросить страницы, на которых он есть.
+     */
+    public void evictProduct(Long productId) {
+        if (!enabled) {
+            return;
+        }
+        evictProductLocal(productId);
+        CacheInvalidationPublisher publisher = publisherProvider.getIfAvailable();
+        if (publisher != null) {
+            publisher.publishEvict(CACHE_NAME, String.valueOf(productId));
+        }
+    }
+
+    /**
+     * Товар добавлен или деактивирован: сдвинулись все страницы.
+     */
+    public void clear() {
+        if (!enabled) {
+            return;
+        }
+        clearLocal();
+        CacheInvalidationPublisher publisher = publisherProvider.getIfAvailable();
+        if (publisher != null) {
+            publisher.publishClear(CACHE_NAME);
+        }
+    }
+
+    @Override
+    public void onEvict(String key) {
+        try {
+            evictProductLocal(Long.valueOf(key));
+        } catch (NumberFormatException ex) {
+            log.warn("Некорректный ключ инвалидации страниц товаров: {}", key);
+        }
+    }
+
+    @Override
+    public void onClear() {
+        clearLocal();
+    }
+
+    private void store(PageKey key, PageSnapshot snapshot, long loadGeneration) {
+        invalidationLock.readLock().lock();
+        try {
+            if (loadGeneration != generation) {
+                // пока страница читалась из БД, кэш инвалидировали — она может быть устаревшей
+                return;
+            }
+            for (ProductDto product : snapshot.content()) {
+                pagesByProduct.computeIfAbsent(product.getId(), id -> ConcurrentHashMap.newKeySet()).add(key);
+            }
+            pages.put(key, snapshot);
+        } finally {
+            invalidationLock.readLock().unlock();
+        }
+    }
+
+    private void evictProductLocal(Long productId) {
+        invalidationLock.writeLock().lock();
+        try {
+            generation++;
+            Set<PageKey> keys = pagesByProduct.remove(productId);
+            if (keys != null) {
+                pages.invalidateAll(keys);
+            }
+            pages.asMap().keySet().removeIf(PageKey::mutableOrder);
+            log.debug("Сброшены страницы с товаром id={}: {}", productId, keys == null ? 0 : keys.size());
+        } finally {
+            invalidationLock.writeLock().unlock();
+        }
+    }
+
+    private void clearLocal() {
+        invalidationLock.writeLock().lock();
+        try {
+            generation++;
+            pages.invalidateAll();
+            pagesByProduct.clear();
+            log.debug("Кэш страниц товаров очищен");
+        } finally {
+            invalidationLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Чистка обратного индекса после вытеснения страницы (слушатель Caffeine вызывается асинхронно).
+     * Если страницу с тем же ключом уже успели загрузить заново — её индекс не трогаем.
+     */
+    private void unindex(PageKey key, PageSnapshot snapshot, RemovalCause cause) {
+        if (key == null || snapshot == null || cause == RemovalCause.REPLACED) {
+            return;
+        }
+        invalidationLock.writeLock().lock();
+        try {
+            if (pages.asMap().containsKey(key)) {
+                return;
+            }
+            for (ProductDto product : snapshot.content()) {
+                pagesByProduct.computeIfPresent(product.getId(), (id, keys) -> {
+                    keys.remove(key);
+                    return keys.isEmpty() ? null : keys;
+                });
+            }
+        } finally {
+            invalidationLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * mutableOrder — сортировка не только по id: изменение любого товара может переставить страницы.
+     */
+    record PageKey(int page, int size, String sort, boolean mutableOrder) {
+
+        static PageKey of(Pageable pageable) {
+            boolean mutableOrder = pageable.getSort().stream()
+                    .anyMatch(order -> !"id".equals(order.getProperty()));
+            return new PageKey(pageable.getPageNumber(), pageable.getPageSize(),
+                    pageable.getSort().toString(), mutableOrder);
+        }
+    }
+
+    record PageSnapshot(List<ProductDto> content, long total) {
+    }
+}
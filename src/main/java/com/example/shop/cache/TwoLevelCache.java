@@ -0,0 +1,354 @@
+package com.example.shop.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Двухуровневый кэш: L1 — Caffeine в куче процесса, L2 — общий для всех узлов Redis.
+ * <p>
+ * Чтение: L1 -> L2 -> загрузчик. Запись и удаление идут в оба уровня, после чего остальные узлы
+ * получают через Redis pub/sub сообщение и выбрасывают ключ из своего L1.
+ * Ключи L1 хранятся в строковом виде (как и в Redis), чтобы их можно было передать по сети.
+ * <p>
+ * Защита от cache stampede (для {@code @Cacheable(sync = true)}):
+ * <ul>
+ *     <li>single-flight — на узле по ключу работает один загрузчик, остальные ждут его future;</li>
+ *     <li>вероятностное раннее обновление (XFetch) — горячий ключ перезагружается в фоне незадолго
+ *     до истечения TTL, вероятность растёт по мере приближения к нему и с "дороговизной" загрузки.</li>
+ * </ul>
+ * put/evict/clear отменяют незавершённые загрузки ключа ({@link Flight#supersede()}): значение, прочитанное
+ * до изменения, не записывается ни в L1, ни в L2, а новые промахи не присоединяются к старой загрузке.
+ */
+@Slf4j
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    static final String TIER_LOCAL = "l1";
+    static final String TIER_REMOTE = "l2";
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, LocalEntry> local;
+    private final Cache remote;
+    private final CacheInvalidationPublisher publisher;
+    private final long localTtlNanos;
+    private final boolean earlyRefresh;
+    private final double earlyRefreshBeta;
+    private final Executor refreshExecutor;
+
+    private final ConcurrentMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Counter remoteEvictions;
+    private final Counter collapsedRequests;
+    private final Counter earlyRefreshes;
+    private final Timer loadTimer;
+    private final Timer remoteGetTimer;
+    private final Timer remotePutTimer;
+
+    public TwoLevelCache(String name,
+                         com.github.benmanes.caffeine.cache.Cache<String, LocalEntry> local,
+                         Cache remote,
+                         CacheInvalidationPublisher publisher,
+                         TwoLevelCacheManager.LocalTierSettings settings,
+                         Executor refreshExecutor,
+                         MeterRegistry meterRegistry) {
+        super(true);
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.publisher = publisher;
+        this.localTtlNanos = settings.ttl().toNanos();
+        this.earlyRefresh = settings.earlyRefresh();
+        this.earlyRefreshBeta = settings.earlyRefreshBeta();
+        this.refreshExecutor = refreshExecutor;
+
+        this.remoteHits = remoteCounter(meterRegistry, "cache.gets", "result", "hit");
+        this.remoteMisses = remoteCounter(meterRegistry, "cache.gets", "result", "miss");
+        this.remoteEvictions = Counter.builder("cache.evictions")
+                .tag("cache", name)
+                .tag("tier", TIER_REMOTE)
+                .register(meterRegistry);
+        this.collapsedRequests = Counter.builder("cache.singleflight.collapsed")
+                .description("Запросы, дождавшиеся чужой загрузки того же ключа вместо собственной")
+                .tag("cache", name)
+                .register(meterRegistry);
+        this.earlyRefreshes = Counter.builder("cache.early.refreshes")
+                .description("Фоновые перезагрузки ключа до истечения TTL")
+                .tag("cache", name)
+                .register(meterRegistry);
+        this.loadTimer = Timer.builder("cache.loads")
+                .description("Время загрузки значения при промахе обоих уровней")
+                .tag("cache", name)
+                .register(meterRegistry);
+        this.remoteGetTimer = remoteTimer(meterRegistry, "get");
+        this.remotePutTimer = remoteTimer(meterRegistry, "put");
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String localKey = toLocalKey(key);
+        LocalEntry entry = local.getIfPresent(localKey);
+        if (entry != null) {
+            return entry.value();
+        }
+
+        Object remoteValue = lookupRemote(key);
+        if (remoteValue != null) {
+            local.put(localKey, new LocalEntry(remoteValue, System.nanoTime(), 0));
+        }
+        return remoteValue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = toLocalKey(key);
+        LocalEntry entry = local.getIfPresent(localKey);
+        if (entry != null) {
+            if (shouldRefreshEarly(entry)) {
+                refreshAsync(key, localKey, valueLoader);
+            }
+            return (T) fromStoreValue(entry.value());
+        }
+
+        Flight flight = new Flight();
+        Flight existing = inFlight.putIfAbsent(localKey, flight);
+        if (existing != null) {
+            collapsedRequests.increment();
+            return (T) fromStoreValue(await(existing.result, key, valueLoader));
+        }
+
+        try {
+            Object storeValue = lookupRemote(key);
+            if (storeValue != null) {
+                LocalEntry fromRemote = new LocalEntry(storeValue, System.nanoTime(), 0);
+                flight.store(() -> local.put(localKey, fromRemote));
+            } else {
+                storeValue = load(key, localKey, valueLoader, flight);
+            }
+            flight.result.complete(storeValue);
+            return (T) fromStoreValue(storeValue);
+        } catch (RuntimeException ex) {
+            flight.result.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(localKey, flight);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String localKey = toLocalKey(key);
+        supersede(localKey);
+        remotePutTimer.record(() -> remote.put(key, value));
+        // загрузка, начатая между отменой и записью в L2, могла прочитать из L2 старое значение
+        supersede(localKey);
+        local.put(localKey, new LocalEntry(toStoreValue(value), System.nanoTime(), 0));
+        publisher.publishEvict(name, localKey);
+    }
+
+    @Override
+    public void evict(Object key) {
+        String localKey = toLocalKey(key);
+        supersede(localKey);
+        remote.evict(key);
+        remoteEvictions.increment();
+        supersede(localKey);
+        local.invalidate(localKey);
+        publisher.publishEvict(name, localKey);
+    }
+
+    @Override
+    public void clear() {
+        supersedeAll();
+        remote.clear();
+        supersedeAll();
+        local.invalidateAll();
+        publisher.publishClear(name);
+    }
+
+    /**
+     * Сброс только локального уровня — по сообщению от другого узла.
+     */
+    void evictLocal(String localKey) {
+        supersede(localKey);
+        local.invalidate(localKey);
+    }
+
+    void clearLocal() {
+        supersedeAll();
+        local.invalidateAll();
+    }
+
+    private void supersede(String localKey) {
+        Flight flight = inFlight.remove(localKey);
+        if (flight != null) {
+            flight.supersede();
+        }
+    }
+
+    private void supersedeAll() {
+        inFlight.values().removeIf(flight -> {
+            flight.supersede();
+            return true;
+        });
+    }
+
+    /**
+     * XFetch: обновить, если now - delta * beta * ln(rand) >= момент истечения.
+     */
+    private boolean shouldRefreshEarly(LocalEntry entry) {
+        if (!earlyRefresh || entry.loadNanos() <= 0) {
+            return false;
+        }
+        double random = ThreadLocalRandom.current().nextDouble(Double.MIN_VALUE, 1.0);
+        double gap = entry.loadNanos() * earlyRefreshBeta * -Math.log(random);
+        long expiresAt = entry.storedAtNanos() + localTtlNanos;
+        return System.nanoTime() + gap >= expiresAt;
+    }
+
+    private void refreshAsync(Object key, String localKey, Callable<?> valueLoader) {
+        Flight flight = new Flight();
+        if (inFlight.putIfAbsent(localKey, flight) != null) {
+            return;
+        }
+        earlyRefreshes.increment();
+        log.debug("Раннее обновление ключа кэша: cache={}, key={}", name, localKey);
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    Object storeValue = load(key, localKey, valueLoader, flight);
+                    publisher.publishEvict(name, localKey);
+                    flight.result.complete(storeValue);
+                } catch (RuntimeException ex) {
+                    log.warn("Ошибка раннего обновления ключа кэша: cache={}, key={}: {}",
+                            name, localKey, ex.getMessage());
+                    flight.result.completeExceptionally(ex);
+                } finally {
+                    inFlight.remove(localKey, flight);
+                }
+            });
+        } catch (RuntimeException ex) {
+            // пул обновлений переполнен — ключ обновится обычным путём после истечения TTL
+            inFlight.remove(localKey, flight);
+            flight.result.cancel(false);
+        }
+    }
+
+    private Object load(Object key, String localKey, Callable<?> valueLoader, Flight flight) {
+        long started = System.nanoTime();
+        Object loaded;
+        try {
+            loaded = valueLoader.call();
+        } catch (Exception ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+        long loadNanos = System.nanoTime() - started;
+        loadTimer.record(loadNanos, TimeUnit.NANOSECONDS);
+
+        Object storeValue = toStoreValue(loaded);
+        boolean stored = flight.store(() -> {
+            remotePutTimer.record(() -> remote.put(key, loaded));
+            local.put(localKey, new LocalEntry(storeValue, System.nanoTime(), loadNanos));
+        });
+        if (!stored) {
+            log.debug("Ключ кэша изменён во время загрузки, значение не сохранено: cache={}, key={}", name, localKey);
+        }
+        return storeValue;
+    }
+
+    private Object await(CompletableFuture<Object> flight, Object key, Callable<?> valueLoader) {
+        try {
+            return flight.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+        }
+    }
+
+    private Object lookupRemote(Object key) {
+        ValueWrapper wrapper = remoteGetTimer.record(() -> remote.get(key));
+        if (wrapper == null) {
+            remoteMisses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        return toStoreValue(wrapper.get());
+    }
+
+    private Counter remoteCounter(MeterRegistry meterRegistry, String meterName, String tagKey, String tagValue) {
+        return Counter.builder(meterName)
+                .tag("cache", name)
+                .tag("tier", TIER_REMOTE)
+                .tag(tagKey, tagValue)
+                .register(meterRegistry);
+    }
+
+    private Timer remoteTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("cache.remote.latency")
+                .description("Время обращения к Redis (L2)")
+                .tag("cache", name)
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    static String toLocalKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    /**
+     * Загрузка ключа, к которой присоединяются параллельные промахи.
+     * Запись результата в кэш и отмена взаимно исключены: после {@link #supersede()} значение
+     * уже не будет записано, а начатая запись успеет завершиться до того, как ключ сбросят.
+     */
+    private static final class Flight {
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private boolean superseded;
+
+        synchronized boolean store(Runnable write) {
+            if (superseded) {
+                return false;
+            }
+            write.run();
+            return true;
+        }
+
+        synchronized void supersede() {
+            superseded = true;
+        }
+    }
+
+    /**
+     * Значение L1 с моментом записи и длительностью загрузки (для раннего обновления).
+     * loadNanos = 0 — значение пришло не из загрузчика (из L2 или put), раннее обновление не нужно.
+     */
+    record LocalEntry(Object value, long storedAtNanos, long loadNanos) {
+    }
+}
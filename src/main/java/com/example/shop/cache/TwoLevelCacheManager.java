@@ -0,0 +1,180 @@
+package com.example.shop.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CacheManager, который оборачивает каждый кэш Redis-менеджера в {@link TwoLevelCache}
+ * и синхронизирует локальные уровни узлов через Redis pub/sub.
+ * <p>
+ * Формат сообщения: {@code nodeId|E|cacheName|key} (evict) или {@code nodeId|C|cacheName|} (clear).
+ * Собственные сообщения узел игнорирует.
+ * <p>
+ * Фоновые ранние обновления ключей выполняются в небольшом ограниченном пуле: если он занят,
+ * обновление пропускается и ключ перезагрузится обычным путём после истечения TTL.
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, CacheInvalidationPublisher, MessageListener, DisposableBean {
+
+    private static final String SEPARATOR = "|";
+    private static final String OP_EVICT = "E";
+    private static final String OP_CLEAR = "C";
+    private static final int REFRESH_THREADS = 2;
+    private static final int REFRESH_QUEUE_CAPACITY = 256;
+
+    private final CacheManager remoteCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final LocalTierSettings localSettings;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor refreshExecutor;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Listener> listeners = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remoteCacheManager,
+                                StringRedisTemplate redisTemplate,
+                                String channel,
+                                LocalTierSettings localSettings,
+                                MeterRegistry meterRegistry) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.localSettings = localSettings;
+        this.meterRegistry = meterRegistry;
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.refreshExecutor = new ThreadPoolExecutor(
+                REFRESH_THREADS, REFRESH_THREADS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(REFRESH_QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-refresh-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.refreshExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    @Override
+    public void publishEvict(String cacheName, String key) {
+        publish(OP_EVICT, cacheName, key);
+    }
+
+    @Override
+    public void publishClear(String cacheName) {
+        publish(OP_CLEAR, cacheName, "");
+    }
+
+    @Override
+    public void subscribe(String cacheName, Listener listener) {
+        listeners.put(cacheName, listener);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\|", 4);
+        if (parts.length < 4 || nodeId.equals(parts[0])) {
+            return;
+        }
+
+        TwoLevelCache cache = caches.get(parts[2]);
+        Listener listener = listeners.get(parts[2]);
+        if (cache == null && listener == null) {
+            return;
+        }
+
+        if (OP_CLEAR.equals(parts[1])) {
+            log.debug("Инвалидация L1 от узла {}: clear cache={}", parts[0], parts[2]);
+            if (cache != null) {
+                cache.clearLocal();
+            }
+            if (listener != null) {
+                listener.onClear();
+            }
+        } else {
+            log.debug("Инвалидация L1 от узла {}: cache={}, key={}", parts[0], parts[2], parts[3]);
+            if (cache != null) {
+                cache.evictLocal(parts[3]);
+            }
+            if (listener != null) {
+                listener.onEvict(parts[3]);
+            }
+        }
+    }
+
+    private TwoLevelCache createCache(String name) {
+        Cache remote = remoteCacheManager.getCache(name);
+        if (remote == null) {
+            throw new IllegalStateException("Remote cache not available: " + name);
+        }
+
+        com.github.benmanes.caffeine.cache.Cache<String, TwoLevelCache.LocalEntry> local = Caffeine.newBuilder()
+                .maximumSize(localSettings.maximumSize())
+                .expireAfterWrite(localSettings.ttl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, name, Tags.of("tier", TwoLevelCache.TIER_LOCAL));
+
+        log.info("Создан двухуровневый кэш: name={}, l1.maximumSize={}, l1.ttl={}, earlyRefresh={}",
+                name, localSettings.maximumSize(), localSettings.ttl(), localSettings.earlyRefresh());
+        return new TwoLevelCache(name, local, remote, this, localSettings, refreshExecutor, meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private void publish(String op, String cacheName, String key) {
+        String message = String.join(SEPARATOR, nodeId, op, cacheName, key);
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (RuntimeException ex) {
+            // локальные уровни других узлов доживут до TTL — это лучше, чем падение записи
+            log.warn("Не удалось отправить инвалидацию кэша: cache={}, key={}: {}", cacheName, key, ex.getMessage());
+        }
+    }
+
+    /**
+     * Настройки локального уровня.
+     *
+     * @param earlyRefreshBeta множитель XFetch: больше 1 — обновлять раньше, меньше 1 — позже
+     */
+    public record LocalTierSettings(long maximumSize, Duration ttl, boolean earlyRefresh, double earlyRefreshBeta) {
+    }
+}
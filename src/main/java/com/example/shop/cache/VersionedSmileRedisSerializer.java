@@ -0,0 +1,134 @@
+package com.example.shop.cache;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileParser;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Компактный бинарный сериализатор значений Redis: Jackson Smile с версионированным заголовком типа.
+ * <p>
+ * Формат: {@code [magic][formatVersion][len][typeId...][schemaVersion][smile payload]}.
+ * Сериализуются только зарегистрированные типы — имя класса в Redis не пишется и при чтении
+ * произвольные классы не создаются.
+ * <p>
+ * При несовместимом изменении DTO увеличьте версию схемы в {@link #register}: записи старой версии
+ * (как и записи в чужом формате, например JDK-сериализация) читаются как {@code null},
+ * то есть становятся промахом кэша, а не ошибкой.
+ */
+@Slf4j
+public class VersionedSmileRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xCE;
+    static final byte FORMAT_VERSION = 1;
+
+    private final ObjectMapper mapper;
+    private final Map<Class<?>, TypeHeader> headersByType = new HashMap<>();
+    private final Map<String, TypeHeader> headersById = new HashMap<>();
+
+    public VersionedSmileRedisSerializer() {
+        SmileFactory factory = SmileFactory.builder()
+                .disable(SmileGenerator.Feature.WRITE_HEADER)
+                .disable(SmileParser.Feature.REQUIRE_HEADER)
+                .build();
+        this.mapper = new ObjectMapper(factory)
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * Регистрация типа значения кэша.
+     *
+     * @param typeId        короткий стабильный идентификатор (не имя класса — его можно переименовать)
+     * @param schemaVersion версия схемы, 0..127
+     */
+    public VersionedSmileRedisSerializer register(Class<?> type, String typeId, int schemaVersion) {
+        byte[] id = typeId.getBytes(StandardCharsets.US_ASCII);
+        if (id.length == 0 || id.length > Byte.MAX_VALUE || schemaVersion < 0 || schemaVersion > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid cache type header: " + typeId + " v" + schemaVersion);
+        }
+        TypeHeader header = new TypeHeader(type, typeId, (byte) schemaVersion, buildPrefix(id, (byte) schemaVersion));
+        headersByType.put(type, header);
+        headersById.put(typeId, header);
+        return this;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return null;
+        }
+
+        TypeHeader header = headersByType.get(value.getClass());
+        if (header == null) {
+            throw new SerializationException("Type is not registered for cache serialization: " + value.getClass().getName());
+        }
+
+        try {
+            byte[] payload = mapper.writeValueAsBytes(value);
+            byte[] result = Arrays.copyOf(header.prefix(), header.prefix().length + payload.length);
+            System.arraycopy(payload, 0, result, header.prefix().length, payload.length);
+            return result;
+        } catch (IOException ex) {
+            throw new SerializationException("Could not serialize cache value: " + header.typeId(), ex);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes.length < 4 || bytes[0] != MAGIC || bytes[1] != FORMAT_VERSION) {
+            log.debug("Значение кэша в неизвестном формате ({} байт) — считается промахом", bytes.length);
+            return null;
+        }
+
+        int idLength = bytes[2];
+        int payloadOffset = 3 + idLength + 1;
+        if (idLength <= 0 || payloadOffset > bytes.length) {
+            return null;
+        }
+
+        String typeId = new String(bytes, 3, idLength, StandardCharsets.US_ASCII);
+        byte schemaVersion = bytes[3 + idLength];
+        TypeHeader header = headersById.get(typeId);
+        if (header == null || header.schemaVersion() != schemaVersion) {
+            log.debug("Значение кэша устаревшей или неизвестной схемы: type={}, version={} — считается промахом",
+                    typeId, schemaVersion);
+            return null;
+        }
+
+        try {
+            return mapper.readValue(bytes, payloadOffset, bytes.length - payloadOffset, header.type());
+        } catch (IOException ex) {
+            throw new SerializationException("Could not deserialize cache value: " + typeId, ex);
+        }
+    }
+
+    private static byte[] buildPrefix(byte[] typeId, byte schemaVersion) {
+        byte[] prefix = new byte[3 + typeId.length + 1];
+        prefix[0] = MAGIC;
+        prefix[1] = FORMAT_VERSION;
+        prefix[2] = (byte) typeId.length;
+        System.arraycopy(typeId, 0, prefix, 3, typeId.length);
+        prefix[prefix.length - 1] = schemaVersion;
+        return prefix;
+    }
+
+    private record TypeHeader(Class<?> type, String typeId, byte schemaVersion, byte[] prefix) {
+    }
+}
@@ -1,23 +1,78 @@
 package com.example.shop.config;
 
+import com.example.shop.cache.TwoLevelCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.CacheManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.interceptor.SimpleKeyGenerator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
+import java.time.Duration;
+
+/**
+ * Кэширование: Caffeine (L1, в куче) перед Redis (L2, общий для узлов).
+ * При spring.cache.type отличном от redis (например, none в тестах) конфигурация не подключается
+ * и Spring Boot создаёт CacheManager сам.
+ */
 @Slf4j
 @Configuration
 @EnableCaching
+@ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis", matchIfMissing = true)
 public class CacheConfig {
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
-        log.info("Инициализация Redis CacheManager");
-        return RedisCacheManager.builder(connectionFactory).build();
+    public TwoLevelCacheManager cacheManager(
+            RedisConnectionFactory connectionFactory,
+            MeterRegistry meterRegistry,
+            RedisSerializer<Object> cacheValueSerializer,
+            @Value("${shop.cache.redis.ttl:10m}") Duration redisTtl,
+            @Value("${shop.cache.local.maximum-size:10000}") long localMaximumSize,
+            @Value("${shop.cache.local.ttl:60s}") Duration localTtl,
+            @Value("${shop.cache.local.early-refresh.enabled:true}") boolean earlyRefresh,
+            @Value("${shop.cache.local.early-refresh.beta:1.0}") double earlyRefreshBeta,
+            @Value("${shop.cache.invalidation-channel:shop:cache:invalidation}") String channel
+    ) {
+        log.info("Инициализация двухуровневого CacheManager: Caffeine(maximumSize={}, ttl={}) + Redis(ttl={})",
+                localMaximumSize, localTtl, redisTtl);
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(RedisCacheConfiguration.defaultCacheConfig()
+                        .entryTtl(redisTtl)
+                        .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(cacheValueSerializer)))
+                .build();
+        redisCacheManager.afterPropertiesSet();
+
+        return new TwoLevelCacheManager(
+                redisCacheManager,
+                new StringRedisTemplate(connectionFactory),
+                channel,
+                new TwoLevelCacheManager.LocalTierSettings(localMaximumSize, localTtl, earlyRefresh, earlyRefreshBeta),
+                meterRegistry
+        );
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            TwoLevelCacheManager cacheManager,
+            @Value("${shop.cache.invalidation-channel:shop:cache:invalidation}") String channel
+    ) {
+        log.info("Подписка на инвалидации кэша через Redis pub/sub: channel={}", channel);
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(channel));
+        return container;
     }
 
     @Bean
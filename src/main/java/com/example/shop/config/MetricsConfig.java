@@ -1,21 +1,77 @@
 package com.example.shop.config;
 
+import com.example.shop.metrics.QueryCountingListener;
+import com.example.shop.web.QueryCountFilter;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.aop.TimedAspect;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
 
+import javax.sql.DataSource;
+
+/**
+ * Реестр метрик создаёт Spring Boot (Prometheus, общий тег application задаётся в application.yml),
+ * здесь — только инструментирование: @Timed на сервисах и подсчёт SQL-запросов с бюджетом на запрос.
+ */
 @Slf4j
 @Configuration
 public class MetricsConfig {
 
     @Bean
-    public MeterRegistry meterRegistry() {
-        log.info("Создание MeterRegistry с commonTags application=shop");
-        MeterRegistry registry = new SimpleMeterRegistry();
-        registry.config()
-                .commonTags("application", "shop");
-        return registry;
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    /**
+     * Оборачивает DataSource в datasource-proxy, чтобы считать запросы, строки и время в JDBC
+     * на HTTP-запрос и метод сервиса (см. {@link com.example.shop.metrics.QueryCounter}).
+     * Пул Hikari остаётся доступен через unwrap.
+     * <p>
+     * Подсчёт прочитанных строк проксирует каждый ResultSet и каждый вызов на нём, поэтому по умолчанию
+     * выключен (shop.metrics.sql.count-rows) — считаются только изменённые строки.
+     */
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor(Environment environment) {
+        boolean countRows = environment.getProperty("shop.metrics.sql.count-rows", Boolean.class, false);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)) {
+                    log.info("Подключение подсчёта SQL-запросов к DataSource: countRows={}", countRows);
+                    QueryCountingListener listener = new QueryCountingListener();
+                    ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(dataSource)
+                            .name("shop")
+                            .listener(listener);
+                    if (countRows) {
+                        builder.proxyResultSet().methodListener(listener);
+                    }
+                    return builder.build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Тег sql.budget=within|exceeded в http.server.requests — по результату {@link QueryCountFilter}.
+     */
+    @Bean
+    public ServerRequestObservationConvention queryBudgetObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                Object budget = context.getCarrier().getAttribute(QueryCountFilter.BUDGET_ATTRIBUTE);
+                return super.getLowCardinalityKeyValues(context)
+                        .and("sql.budget", budget != null ? budget.toString() : QueryCountFilter.BUDGET_UNKNOWN);
+            }
+        };
     }
 }
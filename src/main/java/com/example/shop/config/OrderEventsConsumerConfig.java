@@ -0,0 +1,56 @@
+package com.example.shop.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Контейнер слушателя shop.order.events для пакетной обработки.
+ * <p>
+ * Пачка отдаётся слушателю, когда набрано batch-size сообщений или очередь молчит receive-timeout.
+ * Подтверждения ручные: слушатель сам подтверждает обработанные и отклоняет poison-сообщения
+ * (без requeue, т.е. в dead-letter очередь).
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "shop.order-events.consumer.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderEventsConsumerConfig {
+
+    public static final String CONTAINER_FACTORY = "orderEventsContainerFactory";
+
+    @Bean(name = CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory orderEventsContainerFactory(
+            ConnectionFactory connectionFactory,
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            @Value("${shop.order-events.consumer.concurrency:2}") int concurrency,
+            @Value("${shop.order-events.consumer.max-concurrency:4}") int maxConcurrency,
+            @Value("${shop.order-events.consumer.prefetch:500}") int prefetch,
+            @Value("${shop.order-events.consumer.batch-size:250}") int batchSize,
+            @Value("${shop.order-events.consumer.receive-timeout:100ms}") Duration receiveTimeout
+    ) {
+        log.info("Потребитель событий заказов: concurrency={}..{}, prefetch={}, batchSize={}, receiveTimeout={}",
+                concurrency, maxConcurrency, prefetch, batchSize, receiveTimeout);
+
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(Math.max(concurrency, maxConcurrency));
+        // prefetch меньше пачки не даст её набрать: брокер перестанет слать до подтверждений
+        factory.setPrefetchCount(Math.max(prefetch, batchSize));
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(receiveTimeout.toMillis());
+        factory.setDefaultRequeueRejected(false);
+        return factory;
+    }
+}
@@ -10,9 +10,18 @@ import org.springframework.context.annotation.Configuration;
 public class RabbitMQConfig {
 
     public static final String ORDER_EXCHANGE = "shop.order.exchange";
-    public static final String ORDER_QUEUE = "shop.order.queue";
+    /**
+     * Аргументы существующей durable-очереди поменять нельзя (redeclare с x-dead-letter-exchange
+     * падает с PRECONDITION_FAILED), поэтому очередь с dead-lettering объявлена под новым именем.
+     * Перенос сообщений из прежней shop.order.queue описан в README, раздел "Миграции RabbitMQ".
+     */
+    public static final String ORDER_QUEUE = "shop.order.events";
     public static final String ORDER_ROUTING_KEY = "shop.order.created";
 
+    // сообщения, которые потребитель не смог обработать (poison), уходят сюда, а не обратно в очередь
+    public static final String ORDER_DEAD_LETTER_EXCHANGE = "shop.order.dlx";
+    public static final String ORDER_DEAD_LETTER_QUEUE = "shop.order.dlq";
+
     @Bean
     public TopicExchange orderExchange() {
         log.info("Создание TopicExchange: name={}", ORDER_EXCHANGE);
@@ -22,7 +31,9 @@ public class RabbitMQConfig {
     @Bean
     public Queue orderQueue() {
         log.info("Создание очереди: name={}", ORDER_QUEUE);
-        return QueueBuilder.durable(ORDER_QUEUE).build();
+        return QueueBuilder.durable(ORDER_QUEUE)
+                .deadLetterExchange(ORDER_DEAD_LETTER_EXCHANGE)
+                .build();
     }
 
     @Bean
@@ -34,4 +45,25 @@ public class RabbitMQConfig {
                 .to(orderExchange())
                 .with(ORDER_ROUTING_KEY);
     }
+
+    @Bean
+    public DirectExchange orderDeadLetterExchange() {
+        log.info("Создание dead-letter exchange: name={}", ORDER_DEAD_LETTER_EXCHANGE);
+        return new DirectExchange(ORDER_DEAD_LETTER_EXCHANGE);
+    }
+
+    @Bean
+    public Queue orderDeadLetterQueue() {
+        log.info("Создание dead-letter очереди: name={}", ORDER_DEAD_LETTER_QUEUE);
+        return QueueBuilder.durable(ORDER_DEAD_LETTER_QUEUE).build();
+    }
+
+    @Bean
+    public Binding orderDeadLetterBinding() {
+        // при dead-lettering сохраняется исходный routing key
+        return BindingBuilder
+                .bind(orderDeadLetterQueue())
+                .to(orderDeadLetterExchange())
+                .with(ORDER_ROUTING_KEY);
+    }
 }
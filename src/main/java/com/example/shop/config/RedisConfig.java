@@ -1,5 +1,8 @@
 package com.example.shop.config;
 
+import com.example.shop.cache.VersionedSmileRedisSerializer;
+import com.example.shop.dto.category.CategoryDto;
+import com.example.shop.dto.product.ProductDto;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
@@ -7,6 +10,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 @Slf4j
@@ -23,14 +27,32 @@ public class RedisConfig {
         return new LettuceConnectionFactory(host, port);
     }
 
+    /**
+     * Сериализатор значений кэша и RedisTemplate.
+     * smile — компактный Jackson Smile с версией схемы (по умолчанию), jdk — стандартная JDK-сериализация.
+     */
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(LettuceConnectionFactory connectionFactory) {
+    public RedisSerializer<Object> cacheValueSerializer(@Value("${shop.cache.codec:smile}") String codec) {
+        log.info("Сериализатор значений Redis: {}", codec);
+        if ("jdk".equalsIgnoreCase(codec)) {
+            return RedisSerializer.java();
+        }
+        return new VersionedSmileRedisSerializer()
+                .register(ProductDto.class, "product", 1)
+                .register(CategoryDto.class, "category", 1);
+    }
+
+    @Bean
+    public RedisTemplate<String, Object> redisTemplate(LettuceConnectionFactory connectionFactory,
+                                                       RedisSerializer<Object> cacheValueSerializer) {
         log.debug("Создание RedisTemplate");
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
         template.setKeySerializer(new StringRedisSerializer());
         template.setHashKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(cacheValueSerializer);
+        template.setHashValueSerializer(cacheValueSerializer);
 
         return template;
     }
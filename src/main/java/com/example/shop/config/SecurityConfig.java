@@ -1,7 +1,10 @@
 package com.example.shop.config;
 
 import com.example.shop.security.JwtAuthenticationFilter;
+import com.example.shop.security.TimedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -16,12 +19,17 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.time.Duration;
+
 @Slf4j
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity(prePostEnabled = true)
 public class SecurityConfig {
 
+    private static final int MIN_BCRYPT_STRENGTH = 10;
+    private static final int MAX_BCRYPT_STRENGTH = 16;
+
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
     public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter) {
@@ -62,10 +70,38 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * BCrypt с настраиваемой стоимостью: явной (bcrypt-strength) или подобранной при старте под бюджет
+     * времени одного хеша (hash-budget). Пароли со стоимостью ниже текущей перехешируются при входе
+     * (UserDetailsPasswordService), поэтому стоимость можно повышать без сброса паролей.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        log.info("Инициализация BCryptPasswordEncoder для шифрования паролей");
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${shop.security.password.bcrypt-strength:0}") int strength,
+            @Value("${shop.security.password.hash-budget:250ms}") Duration hashBudget
+    ) {
+        int cost = strength > 0 ? strength : calibrateBCryptStrength(hashBudget);
+        log.info("Инициализация BCryptPasswordEncoder для шифрования паролей: strength={}", cost);
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(cost), meterRegistry);
+    }
+
+    /**
+     * Каждый шаг стоимости BCrypt удваивает время: замеряем хеш при минимальной стоимости
+     * и берём максимальную, укладывающуюся в бюджет.
+     */
+    private int calibrateBCryptStrength(Duration hashBudget) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(MIN_BCRYPT_STRENGTH);
+        probe.encode("calibration-warmup");
+        long started = System.nanoTime();
+        probe.encode("calibration");
+        long elapsedNanos = Math.max(1, System.nanoTime() - started);
+
+        int extraSteps = (int) Math.floor(Math.log((double) hashBudget.toNanos() / elapsedNanos) / Math.log(2));
+        int strength = Math.min(MAX_BCRYPT_STRENGTH, MIN_BCRYPT_STRENGTH + Math.max(0, extraSteps));
+        log.info("Калибровка BCrypt: strength={} занимает {} мс, бюджет {} мс -> strength={}",
+                MIN_BCRYPT_STRENGTH, elapsedNanos / 1_000_000, hashBudget.toMillis(), strength);
+        return strength;
     }
 
     @Bean
@@ -1,37 +1,83 @@
 package com.example.shop.controller;
 
+import com.example.shop.dto.common.CursorPageDto;
 import com.example.shop.dto.order.CreateOrderRequestDto;
 import com.example.shop.dto.order.OrderDto;
+import com.example.shop.dto.order.OrderSummaryDto;
 import com.example.shop.dto.order.UpdateOrderStatusRequestDto;
+import com.example.shop.exception.BadRequestException;
+import com.example.shop.service.OrderExportService;
 import com.example.shop.service.OrderService;
+import com.example.shop.util.EmitterOutputStream;
 import com.example.shop.util.PaginationUtil;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Locale;
 
 @Slf4j
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
 
+    // кусок ответа выгрузки: меньше — больше обращений к сокету, больше — дольше ждёт первый байт
+    private static final int EXPORT_CHUNK_SIZE = 64 * 1024;
+
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
+    private final AsyncTaskExecutor exportExecutor;
+    private final boolean asyncCheckout;
+    private final Duration exportTimeout;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService,
+                           OrderExportService orderExportService,
+                           @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                           AsyncTaskExecutor exportExecutor,
+                           @Value("${shop.checkout.async.enabled:false}") boolean asyncCheckout,
+                           @Value("${shop.orders.export.timeout:1h}") Duration exportTimeout) {
         this.orderService = orderService;
+        this.orderExportService = orderExportService;
+        this.exportExecutor = exportExecutor;
+        this.asyncCheckout = asyncCheckout;
+        this.exportTimeout = exportTimeout;
     }
 
     /**
      * Создать заказ (корзина -> заказ).
      * Доступно USER и ADMIN.
+     * При shop.checkout.async.enabled=true заказ только принимается: 202 Accepted со статусом PENDING
+     * и Location для опроса, итоговый статус (NEW или REJECTED) появится после резервирования.
      */
     @PostMapping
     @PreAuthorize("hasAuthority('ROLE_USER') or hasAuthority('ROLE_ADMIN')")
-    public OrderDto create(@Valid @RequestBody CreateOrderRequestDto dto) {
-        log.info("Создание нового заказа");
-        return orderService.create(dto);
+    public ResponseEntity<OrderDto> create(@Valid @RequestBody CreateOrderRequestDto dto) {
+        if (!asyncCheckout) {
+            log.info("Создание нового заказа");
+            return ResponseEntity.ok(orderService.create(dto));
+        }
+
+        log.info("Приём нового заказа (асинхронное оформление)");
+        OrderDto accepted = orderService.submit(dto);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/orders/" + accepted.getId()))
+                .body(accepted);
     }
 
     /**
@@ -61,6 +107,33 @@ public class OrderController {
         return orderService.getMyOrders(pageable);
     }
 
+    /**
+     * Мои заказы с keyset-пагинацией: GET /api/orders/my/scroll?after=&size=
+     */
+    @GetMapping("/my/scroll")
+    public CursorPageDto<OrderDto> scrollMyOrders(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer size
+    ) {
+        int pageSize = PaginationUtil.defaultSize(size);
+        log.debug("Запрос ленты 'мои заказы': after={}, size={}", after, pageSize);
+        return orderService.scrollMyOrders(after, pageSize);
+    }
+
+    /**
+     * Мои заказы в кратком виде (без позиций) — для списков и истории заказов.
+     */
+    @GetMapping("/my/summary")
+    public Page<OrderSummaryDto> getMyOrderSummaries(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size
+    ) {
+        Pageable pageable = PaginationUtil.defaultPageable(page, size);
+        log.debug("Запрос кратких сведений о моих заказах: page={}, size={}",
+                pageable.getPageNumber(), pageable.getPageSize());
+        return orderService.getMyOrderSummaries(pageable);
+    }
+
     /**
      * Все заказы в системе — только для ADMIN.
      */
@@ -76,6 +149,63 @@ public class OrderController {
         return orderService.getAllOrders(pageable);
     }
 
+    /**
+     * Все заказы с keyset-пагинацией — только для ADMIN.
+     */
+    @GetMapping("/scroll")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public CursorPageDto<OrderDto> scrollAllOrders(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer size
+    ) {
+        int pageSize = PaginationUtil.defaultSize(size);
+        log.info("Админский запрос ленты всех заказов: after={}, size={}", after, pageSize);
+        return orderService.scrollAllOrders(after, pageSize);
+    }
+
+    /**
+     * Выгрузка всех заказов с позициями для отчётов — только для ADMIN:
+     * GET /api/orders/export?format=ndjson|csv
+     * Ответ пишется в поток по мере чтения заказов из БД, память не зависит от их числа.
+     * Выгрузка идёт дольше общего таймаута асинхронных запросов, поэтому у неё свой — shop.orders.export.timeout.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<ResponseBodyEmitter> exportOrders(
+            @RequestParam(defaultValue = "ndjson") String format
+    ) {
+        OrderExportService.Format exportFormat;
+        try {
+            exportFormat = OrderExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Unknown export format: " + format);
+        }
+
+        log.info("Админский запрос выгрузки всех заказов: format={}", exportFormat);
+        MediaType contentType = MediaType.parseMediaType(exportFormat.contentType());
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(exportTimeout.toMillis());
+        exportExecutor.execute(() -> export(exportFormat, contentType, emitter));
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("orders." + exportFormat.fileExtension())
+                        .build()
+                        .toString())
+                .body(emitter);
+    }
+
+    private void export(OrderExportService.Format format, MediaType contentType, ResponseBodyEmitter emitter) {
+        try (OutputStream out = new BufferedOutputStream(
+                new EmitterOutputStream(emitter, contentType), EXPORT_CHUNK_SIZE)) {
+            orderExportService.exportOrders(format, out);
+        } catch (Exception ex) {
+            log.warn("Выгрузка заказов прервана: format={}, reason={}", format, ex.getMessage());
+            emitter.completeWithError(ex);
+            return;
+        }
+        emitter.complete();
+    }
+
     /**
      * Обновление статуса заказа — только ADMIN.
      */
@@ -1,25 +1,43 @@
 package com.example.shop.controller;
 
+import com.example.shop.dto.common.CursorPageDto;
 import com.example.shop.dto.product.CreateProductRequestDto;
+import com.example.shop.dto.product.ProductCatalogDto;
 import com.example.shop.dto.product.ProductDto;
+import com.example.shop.dto.product.ProductImportResultDto;
+import com.example.shop.exception.BadRequestException;
+import com.example.shop.repository.ProductRepositoryCustom.CatalogFilter;
+import com.example.shop.repository.ProductRepositoryCustom.CatalogSort;
+import com.example.shop.service.ProductImportService;
 import com.example.shop.service.ProductService;
 import com.example.shop.util.PaginationUtil;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.Locale;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
 
+    private static final int MAX_QUERY_LENGTH = 200;
+
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
     private final ProductService productService;
+    private final ProductImportService productImportService;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductImportService productImportService) {
         this.productService = productService;
+        this.productImportService = productImportService;
     }
 
     @GetMapping
@@ -33,6 +51,73 @@ public class ProductController {
         return productService.getProducts(pageable);
     }
 
+    /**
+     * Keyset-пагинация для бесконечной ленты: GET /api/products/scroll?after=&size=
+     * Стоимость страницы не зависит от её "глубины", count(*) не выполняется.
+     */
+    @GetMapping("/scroll")
+    public CursorPageDto<ProductDto> scrollProducts(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer size
+    ) {
+        int pageSize = PaginationUtil.defaultSize(size);
+        log.debug("Запрос ленты товаров: after={}, size={}", after, pageSize);
+        return productService.scrollProducts(after, pageSize);
+    }
+
+    /**
+     * Каталог с фильтрами и фасетами:
+     * GET /api/products/catalog?categoryId=&priceFrom=&priceTo=&inStock=&sort=id|price_asc|price_desc|newest&page=&size=
+     * priceTo не включается — границы совпадают с диапазонами в prices.
+     */
+    @GetMapping("/catalog")
+    public ProductCatalogDto getCatalog(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) BigDecimal priceFrom,
+            @RequestParam(required = false) BigDecimal priceTo,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size
+    ) {
+        if ((priceFrom != null && priceFrom.signum() < 0)
+                || (priceFrom != null && priceTo != null && priceFrom.compareTo(priceTo) >= 0)) {
+            throw new BadRequestException("priceFrom must be non-negative and less than priceTo");
+        }
+        CatalogSort catalogSort;
+        try {
+            catalogSort = CatalogSort.valueOf(sort.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Unknown sort: " + sort);
+        }
+
+        Pageable pageable = PaginationUtil.defaultPageable(page, size);
+        CatalogFilter filter = new CatalogFilter(categoryId, priceFrom, priceTo, inStock);
+        log.debug("Запрос каталога: filter={}, sort={}, page={}, size={}",
+                filter, catalogSort, pageable.getPageNumber(), pageable.getPageSize());
+        return productService.getCatalog(filter, catalogSort, pageable);
+    }
+
+    /**
+     * Полнотекстовый поиск: GET /api/products/search?q=&page=&size=
+     * Синтаксис запроса — как у поисковиков: слова, "фраза", or, -исключение.
+     */
+    @GetMapping("/search")
+    public Page<ProductDto> search(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size
+    ) {
+        String query = q.strip();
+        if (query.isEmpty() || query.length() > MAX_QUERY_LENGTH) {
+            throw new BadRequestException("Search query must be 1-" + MAX_QUERY_LENGTH + " characters");
+        }
+        Pageable pageable = PaginationUtil.defaultPageable(page, size);
+        log.debug("Поиск товаров: q='{}', page={}, size={}",
+                query, pageable.getPageNumber(), pageable.getPageSize());
+        return productService.search(query, pageable);
+    }
+
     @GetMapping("/{id}")
     public ProductDto getById(@PathVariable Long id) {
         log.debug("Запрос товара по id={}", id);
@@ -46,6 +131,25 @@ public class ProductController {
         return productService.create(dto);
     }
 
+    /**
+     * Массовая загрузка каталога: POST /api/products/import, тело — CSV с заголовком
+     * (id,name,description,price,stock,category) или NDJSON с теми же полями.
+     * Тело читается потоком, не буферизуется целиком; в ответе — счётчики и ошибки по номерам строк.
+     */
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ProductImportResultDto importCsv(InputStream body) {
+        log.info("Импорт товаров из CSV");
+        return productImportService.importCsv(body);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ProductImportResultDto importNdjson(InputStream body) {
+        log.info("Импорт товаров из NDJSON");
+        return productImportService.importNdjson(body);
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ProductDto update(
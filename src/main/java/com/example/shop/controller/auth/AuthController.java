@@ -5,6 +5,7 @@ import com.example.shop.dto.auth.AuthResponseDto;
 import com.example.shop.dto.auth.RegisterUserRequestDto;
 import com.example.shop.entity.User;
 import com.example.shop.security.JwtService;
+import com.example.shop.security.PasswordHashingExecutor;
 import com.example.shop.security.UserDetailsImpl;
 import com.example.shop.service.UserService;
 import jakarta.validation.Valid;
@@ -14,6 +15,12 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Регистрация и вход. BCrypt выполняется в {@link PasswordHashingExecutor}, а не на потоках Tomcat:
+ * ответ асинхронный, при переполнении очереди — 429.
+ */
 @Slf4j
 @RestController
 @RequestMapping("/api/auth")
@@ -22,36 +29,43 @@ public class AuthController {
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
     private final UserService userService;
+    private final PasswordHashingExecutor passwordHashingExecutor;
 
     public AuthController(AuthenticationManager authenticationManager,
                           JwtService jwtService,
-                          UserService userService) {
+                          UserService userService,
+                          PasswordHashingExecutor passwordHashingExecutor) {
         this.authenticationManager = authenticationManager;
         this.jwtService = jwtService;
         this.userService = userService;
+        this.passwordHashingExecutor = passwordHashingExecutor;
     }
 
     @PostMapping("/register")
-    public AuthResponseDto register(@Valid @RequestBody RegisterUserRequestDto dto) {
+    public CompletableFuture<AuthResponseDto> register(@Valid @RequestBody RegisterUserRequestDto dto) {
         log.info("Запрос регистрации нового пользователя: email={}", dto.getEmail());
-        User user = userService.registerUser(dto);
-        log.debug("Пользователь зарегистрирован: id={}, email={}", user.getId(), user.getEmail());
-        UserDetailsImpl userDetails = UserDetailsImpl.fromUser(user);
-        String token = jwtService.generateToken(userDetails);
-        return new AuthResponseDto(token);
+        return passwordHashingExecutor.submit(() -> {
+            User user = userService.registerUser(dto);
+            log.debug("Пользователь зарегистрирован: id={}, email={}", user.getId(), user.getEmail());
+            UserDetailsImpl userDetails = UserDetailsImpl.fromUser(user);
+            String token = jwtService.generateToken(userDetails);
+            return new AuthResponseDto(token);
+        });
     }
 
     @PostMapping("/login")
-    public AuthResponseDto login(@Valid @RequestBody AuthRequestDto dto) {
+    public CompletableFuture<AuthResponseDto> login(@Valid @RequestBody AuthRequestDto dto) {
         log.info("Попытка входа пользователя: email={}", dto.getEmail());
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        dto.getEmail(),
-                        dto.getPassword()
-                )
-        );
-        log.info("Успешная аутентификация пользователя: email={}", dto.getEmail());
-        String token = jwtService.generateToken((UserDetailsImpl) authentication.getPrincipal());
-        return new AuthResponseDto(token);
+        return passwordHashingExecutor.submit(() -> {
+            Authentication authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            dto.getEmail(),
+                            dto.getPassword()
+                    )
+            );
+            log.info("Успешная аутентификация пользователя: email={}", dto.getEmail());
+            String token = jwtService.generateToken((UserDetailsImpl) authentication.getPrincipal());
+            return new AuthResponseDto(token);
+        });
     }
 }
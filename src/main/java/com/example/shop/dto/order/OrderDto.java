@@ -9,6 +9,7 @@ public class OrderDto {
     private Long id;
     private BigDecimal totalPrice;
     private String status;
+    private String statusReason;
     private LocalDateTime createdAt;
     private List<OrderItemDto> items;
 
@@ -39,6 +40,14 @@ public class OrderDto {
         this.status = status;
     }
 
+    public String getStatusReason() {
+        return statusReason;
+    }
+
+    public void setStatusReason(String statusReason) {
+        this.statusReason = statusReason;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
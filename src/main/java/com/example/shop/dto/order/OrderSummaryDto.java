@@ -0,0 +1,59 @@
+package com.example.shop.dto.order;
+
+import com.example.shop.entity.enums.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Облегчённое представление заказа для списков — без позиций (items не загружаются вовсе).
+ */
+public class OrderSummaryDto {
+
+    private Long id;
+    private BigDecimal totalPrice;
+    private String status;
+    private LocalDateTime createdAt;
+
+    public OrderSummaryDto() {
+    }
+
+    public OrderSummaryDto(Long id, BigDecimal totalPrice, OrderStatus status, LocalDateTime createdAt) {
+        this.id = id;
+        this.totalPrice = totalPrice;
+        this.status = status.name();
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public BigDecimal getTotalPrice() {
+        return totalPrice;
+    }
+
+    public void setTotalPrice(BigDecimal totalPrice) {
+        this.totalPrice = totalPrice;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
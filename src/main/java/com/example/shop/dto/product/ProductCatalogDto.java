@@ -0,0 +1,151 @@
+package com.example.shop.dto.product;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Страница каталога вместе со счётчиками фасетов.
+ * Счётчики категорий посчитаны без учёта фильтра по категории, ценовых диапазонов — без учёта фильтра по цене.
+ */
+public class ProductCatalogDto {
+
+    private List<ProductDto> content;
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+    private List<CategoryFacet> categories;
+    private List<PriceFacet> prices;
+
+    public ProductCatalogDto() {
+    }
+
+    public List<ProductDto> getContent() {
+        return content;
+    }
+
+    public void setContent(List<ProductDto> content) {
+        this.content = content;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public long getTotalElements() {
+        return totalElements;
+    }
+
+    public void setTotalElements(long totalElements) {
+        this.totalElements = totalElements;
+    }
+
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    public void setTotalPages(int totalPages) {
+        this.totalPages = totalPages;
+    }
+
+    public List<CategoryFacet> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<CategoryFacet> categories) {
+        this.categories = categories;
+    }
+
+    public List<PriceFacet> getPrices() {
+        return prices;
+    }
+
+    public void setPrices(List<PriceFacet> prices) {
+        this.prices = prices;
+    }
+
+    public static class CategoryFacet {
+
+        private Long categoryId;
+        private long count;
+
+        public CategoryFacet() {
+        }
+
+        public CategoryFacet(Long categoryId, long count) {
+            this.categoryId = categoryId;
+            this.count = count;
+        }
+
+        public Long getCategoryId() {
+            return categoryId;
+        }
+
+        public void setCategoryId(Long categoryId) {
+            this.categoryId = categoryId;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+    }
+
+    /**
+     * Диапазон цены [from, to); у последнего диапазона to = null. Границы подходят как priceFrom/priceTo фильтра.
+     */
+    public static class PriceFacet {
+
+        private BigDecimal from;
+        private BigDecimal to;
+        private long count;
+
+        public PriceFacet() {
+        }
+
+        public PriceFacet(BigDecimal from, BigDecimal to, long count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        public BigDecimal getFrom() {
+            return from;
+        }
+
+        public void setFrom(BigDecimal from) {
+            this.from = from;
+        }
+
+        public BigDecimal getTo() {
+            return to;
+        }
+
+        public void setTo(BigDecimal to) {
+            this.to = to;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+    }
+}
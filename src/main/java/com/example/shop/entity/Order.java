@@ -13,7 +13,8 @@ import java.util.List;
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_id_seq")
+    @SequenceGenerator(name = "orders_id_seq", sequenceName = "orders_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false)
@@ -24,7 +25,7 @@ public class Order {
             mappedBy = "order",
             cascade = CascadeType.ALL,
             orphanRemoval = true,
-            fetch = FetchType.EAGER // ВАЖНО: тянем items сразу, чтобы не ловить LazyInitializationException
+            fetch = FetchType.LAZY // items подгружаются явно: EntityGraph по списку id или batch fetch
     )
     private List<OrderItem> items = new ArrayList<>();
 
@@ -35,6 +36,10 @@ public class Order {
     @Column(name = "status", nullable = false, length = 50)
     private OrderStatus status;
 
+    // почему заказ отклонён (REJECTED) при асинхронном оформлении
+    @Column(name = "status_reason", length = 500)
+    private String statusReason;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -100,6 +105,14 @@ public class Order {
         this.status = status;
     }
 
+    public String getStatusReason() {
+        return statusReason;
+    }
+
+    public void setStatusReason(String statusReason) {
+        this.statusReason = statusReason;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -1,9 +1,11 @@
 package com.example.shop.entity.enums;
 
 public enum OrderStatus {
+    PENDING,
     NEW,
     PAID,
     SHIPPED,
     COMPLETED,
-    CANCELED
+    CANCELED,
+    REJECTED
 }
@@ -0,0 +1,20 @@
+package com.example.shop.messaging;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Событие shop.order.created (JSON в RabbitMQ).
+ */
+public record OrderCreatedEvent(Long orderId,
+                                Long userId,
+                                BigDecimal totalPrice,
+                                LocalDateTime createdAt,
+                                List<Item> items) {
+
+    public static final String TYPE = "OrderCreated";
+
+    public record Item(Long productId, Integer quantity, BigDecimal price) {
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.shop.messaging;
+
+import com.example.shop.config.OrderEventsConsumerConfig;
+import com.example.shop.config.RabbitMQConfig;
+import com.example.shop.repository.ProcessedMessageRepository;
+import com.example.shop.repository.ProductSalesRepository;
+import com.example.shop.repository.ProductSalesRepository.SalesDelta;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Пакетный потребитель shop.order.created: агрегирует продажи по товарам в product_sales.
+ * <p>
+ * Пачка применяется одной транзакцией: ключи идемпотентности (messageId) вставляются
+ * в processed_messages, и в агрегаты попадают только события, ключей которых там ещё не было.
+ * Поэтому повторная доставка (at-least-once из outbox) не удваивает счётчики.
+ * Если пачка целиком не применилась, сообщения обрабатываются по одному, и в dead-letter
+ * уходит только то, что не проходит само по себе; нечитаемые сообщения отклоняются сразу.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shop.order-events.consumer.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderEventsConsumer {
+
+    private final ProcessedMessageRepository processedMessageRepository;
+    private final ProductSalesRepository productSalesRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration dedupRetention;
+
+    private final DistributionSummary batchSize;
+    private final Timer lag;
+    private final Counter processed;
+    private final Counter duplicates;
+    private final Counter deadLettered;
+
+    public OrderEventsConsumer(ProcessedMessageRepository processedMessageRepository,
+                               ProductSalesRepository productSalesRepository,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${shop.order-events.consumer.batch-size:250}") int maxBatchSize,
+                               @Value("${shop.order-events.consumer.dedup-retention:7d}") Duration dedupRetention) {
+        this.processedMessageRepository = processedMessageRepository;
+        this.productSalesRepository = productSalesRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.dedupRetention = dedupRetention;
+
+        this.batchSize = DistributionSummary.builder("order.events.consumer.batch.size")
+                .description("Количество сообщений в пачке, отданной слушателю")
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue((double) Math.max(1, maxBatchSize))
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.lag = Timer.builder("order.events.consumer.lag")
+                .description("Время от создания события до его обработки потребителем")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.processed = Counter.builder("order.events.consumer.processed").register(meterRegistry);
+        this.duplicates = Counter.builder("order.events.consumer.duplicates").register(meterRegistry);
+        this.deadLettered = Counter.builder("order.events.consumer.dead.lettered").register(meterRegistry);
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.ORDER_QUEUE, containerFactory = OrderEventsConsumerConfig.CONTAINER_FACTORY)
+    public void onBatch(List<Message> messages, Channel channel) throws IOException {
+        batchSize.record(messages.size());
+
+        List<ReceivedEvent> events = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            long deliveryTag = message.getMessageProperties().getDeliveryTag();
+            try {
+                events.add(parse(message));
+            } catch (IOException | RuntimeException ex) {
+                log.warn("Нечитаемое событие заказа отправлено в dead-letter: messageId={}, error={}",
+                        message.getMessageProperties().getMessageId(), ex.getMessage());
+                channel.basicNack(deliveryTag, false, false);
+                deadLettered.increment();
+            }
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+
+        try {
+            record(transactionTemplate.execute(status -> apply(events)));
+            for (ReceivedEvent event : events) {
+                channel.basicAck(event.deliveryTag(), false);
+            }
+        } catch (DataIntegrityViolationException ex) {
+            log.warn("Пачка из {} событий не применилась ({}), обработка по одному", events.size(), ex.getMessage());
+            applyOneByOne(events, channel);
+        } catch (RuntimeException ex) {
+            // БД недоступна и т.п. — сообщения не виноваты, возвращаем их в очередь
+            log.error("Не удалось обработать пачку событий заказов, возврат в очередь: {}", ex.getMessage());
+            for (ReceivedEvent event : events) {
+                channel.basicNack(event.deliveryTag(), false, true);
+            }
+        }
+    }
+
+    private void applyOneByOne(List<ReceivedEvent> events, Channel channel) throws IOException {
+        for (ReceivedEvent event : events) {
+            try {
+                record(transactionTemplate.execute(status -> apply(List.of(event))));
+                channel.basicAck(event.deliveryTag(), false);
+            } catch (DataIntegrityViolationException ex) {
+                log.warn("Событие заказа отправлено в dead-letter: messageId={}, orderId={}, error={}",
+                        event.key(), event.payload().orderId(), ex.getMessage());
+                channel.basicNack(event.deliveryTag(), false, false);
+                deadLettered.increment();
+            } catch (RuntimeException ex) {
+                log.error("Не удалось обработать событие заказа messageId={}, возврат в очередь: {}",
+                        event.key(), ex.getMessage());
+                channel.basicNack(event.deliveryTag(), false, true);
+            }
+        }
+    }
+
+    private Applied apply(List<ReceivedEvent> events) {
+        List<String> keys = events.stream().map(ReceivedEvent::key).toList();
+        Set<String> fresh = processedMessageRepository.markProcessed(keys);
+
+        Map<Long, SalesDelta> deltas = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        List<Duration> lags = new ArrayList<>(events.size());
+        for (ReceivedEvent event : events) {
+            // повтор внутри пачки: ключ вернётся из markProcessed один раз
+            if (!fresh.remove(event.key())) {
+                continue;
+            }
+            Map<Long, SalesDelta> perOrder = new HashMap<>();
+            for (OrderCreatedEvent.Item item : event.payload().items()) {
+                BigDecimal revenue = item.price().multiply(BigDecimal.valueOf(item.quantity()));
+                perOrder.merge(item.productId(), new SalesDelta(item.quantity(), revenue, 0), SalesDelta::plus);
+            }
+            perOrder.forEach((productId, delta) -> deltas.merge(productId,
+                    new SalesDelta(delta.quantity(), delta.revenue(), 1), SalesDelta::plus));
+            lags.add(event.createdAt() != null ? Duration.between(event.createdAt(), now) : null);
+        }
+
+        productSalesRepository.add(deltas);
+        return new Applied(lags.size(), events.size() - lags.size(), lags);
+    }
+
+    // метрики пишем только после коммита, чтобы откаченная пачка не учитывалась дважды
+    private void record(Applied applied) {
+        processed.increment(applied.processed());
+        duplicates.increment(applied.duplicates());
+        for (Duration eventLag : applied.lags()) {
+            if (eventLag != null) {
+                lag.record(eventLag);
+            }
+        }
+    }
+
+    private ReceivedEvent parse(Message message) throws IOException {
+        OrderCreatedEvent payload = objectMapper.readValue(message.getBody(), OrderCreatedEvent.class);
+        if (payload.orderId() == null || payload.items() == null) {
+            throw new IllegalArgumentException("event without orderId or items");
+        }
+        for (OrderCreatedEvent.Item item : payload.items()) {
+            if (item.productId() == null || item.quantity() == null || item.price() == null) {
+                throw new IllegalArgumentException("incomplete item in order " + payload.orderId());
+            }
+        }
+
+        String messageId = message.getMessageProperties().getMessageId();
+        String key = messageId != null ? messageId : OrderCreatedEvent.TYPE + "-" + payload.orderId();
+
+        // лаг считаем от метки брокерного сообщения (время записи в outbox), иначе от даты заказа
+        Date timestamp = message.getMessageProperties().getTimestamp();
+        LocalDateTime createdAt = timestamp != null
+                ? LocalDateTime.ofInstant(timestamp.toInstant(), ZoneId.systemDefault())
+                : payload.createdAt();
+
+        return new ReceivedEvent(message.getMessageProperties().getDeliveryTag(), key, createdAt, payload);
+    }
+
+    /**
+     * Ключи идемпотентности нужны только на время, в течение которого возможна повторная доставка.
+     */
+    @Scheduled(fixedDelayString = "${shop.order-events.consumer.dedup-purge-interval-ms:3600000}")
+    public void purgeProcessedKeys() {
+        int deleted = processedMessageRepository.deleteProcessedBefore(LocalDateTime.now().minus(dedupRetention));
+        if (deleted > 0) {
+            log.info("Удалено {} устаревших ключей идемпотентности", deleted);
+        }
+    }
+
+    private record Applied(int processed, int duplicates, List<Duration> lags) {
+    }
+
+    private record ReceivedEvent(long deliveryTag, String key, LocalDateTime createdAt, OrderCreatedEvent payload) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.shop.messaging;
+
+import com.example.shop.config.RabbitMQConfig;
+import com.example.shop.entity.Order;
+import com.example.shop.repository.OutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+/**
+ * Запись событий заказа в outbox. Вызывается внутри транзакции заказа:
+ * событие появится для relay только вместе с закоммиченным заказом.
+ */
+@Component
+public class OrderEventsOutbox {
+
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    public OrderEventsOutbox(OutboxRepository outboxRepository, ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public void orderCreated(Order order) {
+        OrderCreatedEvent event = new OrderCreatedEvent(
+                order.getId(),
+                order.getUser().getId(),
+                order.getTotalPrice(),
+                order.getCreatedAt(),
+                order.getItems().stream()
+                        .map(item -> new OrderCreatedEvent.Item(
+                                item.getProduct().getId(), item.getQuantity(), item.getPrice()))
+                        .toList()
+        );
+
+        try {
+            outboxRepository.append(
+                    RabbitMQConfig.ORDER_EXCHANGE,
+                    RabbitMQConfig.ORDER_ROUTING_KEY,
+                    OrderCreatedEvent.TYPE,
+                    order.getId(),
+                    objectMapper.writeValueAsString(event)
+            );
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize order event: id=" + order.getId(), ex);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.shop.messaging;
+
+import com.example.shop.repository.OutboxRepository;
+import com.example.shop.repository.OutboxRepository.OutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Фоновая публикация событий из outbox в RabbitMQ.
+ * <p>
+ * За один проход: заблокировать до max-in-flight событий (SKIP LOCKED), отправить их все,
+ * дождаться publisher confirms и удалить подтверждённые — в одной транзакции. Неподтверждённые
+ * (nack, таймаут, возврат как unroutable) остаются в outbox и уйдут в следующий проход.
+ * Доставка at-least-once: потребители должны быть идемпотентны по messageId.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shop.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private static final Duration MIN_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final OutboxRepository outboxRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxInFlight;
+    private final Duration confirmTimeout;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private Duration backoff = Duration.ZERO;
+    private long nextAttemptAt;
+    private final Timer lag;
+    private final Counter published;
+    private final Counter failed;
+
+    public OutboxRelay(OutboxRepository outboxRepository,
+                       RabbitTemplate rabbitTemplate,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${shop.outbox.relay.max-in-flight:100}") int maxInFlight,
+                       @Value("${shop.outbox.relay.confirm-timeout:5s}") Duration confirmTimeout) {
+        this.outboxRepository = outboxRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxInFlight = maxInFlight;
+        this.confirmTimeout = confirmTimeout;
+
+        Gauge.builder("outbox.relay.in.flight", inFlight, AtomicInteger::get)
+                .description("Отправленные события, ожидающие publisher confirm")
+                .register(meterRegistry);
+        this.lag = Timer.builder("outbox.relay.lag")
+                .description("Время от записи события в outbox до подтверждения брокером")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.published = Counter.builder("outbox.relay.published").register(meterRegistry);
+        this.failed = Counter.builder("outbox.relay.failed").register(meterRegistry);
+
+        log.info("Outbox relay: maxInFlight={}, confirmTimeout={}", maxInFlight, confirmTimeout);
+    }
+
+    @Scheduled(fixedDelayString = "${shop.outbox.relay.interval-ms:200}")
+    public void relay() {
+        if (System.nanoTime() - nextAttemptAt < 0) {
+            return;
+        }
+        try {
+            BatchResult result;
+            do {
+                result = transactionTemplate.execute(status -> relayBatch());
+            } while (result != null && result.confirmed() == maxInFlight);
+            backoff = Duration.ZERO;
+        } catch (RuntimeException ex) {
+            // брокер или БД недоступны — события остаются в outbox, повтор с нарастающей паузой
+            backoff = backoff.isZero() ? MIN_BACKOFF : min(backoff.multipliedBy(2), MAX_BACKOFF);
+            nextAttemptAt = System.nanoTime() + backoff.toNanos();
+            log.warn("Публикация outbox прервана, повтор через {} с: {}", backoff.toSeconds(), ex.getMessage());
+        }
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private BatchResult relayBatch() {
+        List<OutboxEvent> events = outboxRepository.lockBatch(maxInFlight);
+        if (events.isEmpty()) {
+            return new BatchResult(0);
+        }
+
+        List<CorrelationData> confirms = new ArrayList<>(events.size());
+        try {
+            for (OutboxEvent event : events) {
+                CorrelationData correlation = new CorrelationData("outbox-" + event.id());
+                rabbitTemplate.send(event.exchange(), event.routingKey(), toMessage(event), correlation);
+                confirms.add(correlation);
+                inFlight.incrementAndGet();
+            }
+            return new BatchResult(awaitConfirms(events, confirms));
+        } finally {
+            inFlight.addAndGet(-confirms.size());
+        }
+    }
+
+    private int awaitConfirms(List<OutboxEvent> events, List<CorrelationData> confirms) {
+        long deadline = System.nanoTime() + confirmTimeout.toNanos();
+        List<Long> confirmed = new ArrayList<>(confirms.size());
+
+        for (int i = 0; i < confirms.size(); i++) {
+            OutboxEvent event = events.get(i);
+            CorrelationData correlation = confirms.get(i);
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                CorrelationData.Confirm confirm = correlation.getFuture().get(remaining, TimeUnit.NANOSECONDS);
+                if (confirm.isAck() && correlation.getReturned() == null) {
+                    confirmed.add(event.id());
+                    lag.record(Duration.between(event.createdAt(), LocalDateTime.now()));
+                } else {
+                    failed.increment();
+                    log.warn("Событие outbox не принято брокером: id={}, reason={}, returned={}",
+                            event.id(), confirm.getReason(), correlation.getReturned() != null);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception ex) {
+                failed.increment();
+                log.warn("Нет подтверждения от брокера для события outbox id={}: {}", event.id(), ex.toString());
+            }
+        }
+
+        outboxRepository.delete(confirmed);
+        published.increment(confirmed.size());
+        log.debug("Outbox: отправлено {}, подтверждено {}", events.size(), confirmed.size());
+        return confirmed.size();
+    }
+
+    private static Message toMessage(OutboxEvent event) {
+        return MessageBuilder.withBody(event.payload().getBytes(StandardCharsets.UTF_8))
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .setContentEncoding(StandardCharsets.UTF_8.name())
+                .setMessageId("outbox-" + event.id())
+                .setType(event.eventType())
+                .setTimestamp(Timestamp.valueOf(event.createdAt()))
+                .setHeader("x-aggregate-id", event.aggregateId())
+                .build();
+    }
+
+    private record BatchResult(int confirmed) {
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.shop.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Счётчик SQL-запросов, выполненных текущим потоком в пределах открытой области
+ * (HTTP-запрос, вызов метода сервиса, тест): число statement, прочитанные/изменённые строки и время в JDBC.
+ * <p>
+ * Пополняется {@link QueryCountingListener} на каждый выполненный через DataSource statement.
+ * Вне области (фоновые задачи, слушатели очередей) запросы не учитываются.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    /**
+     * Открыть область подсчёта в текущем потоке. Вложенная область считает независимо от внешней
+     * и при закрытии добавляет свои значения к ней.
+     */
+    public static Scope start() {
+        Scope parent = CURRENT.get();
+        Scope scope = new Scope(parent, parent != null && parent.statements != null);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * То же, что {@link #start()}, но с сохранением текста запросов — для диагностики N+1 в тестах.
+     */
+    public static Scope startCapturing() {
+        Scope scope = new Scope(CURRENT.get(), true);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    static void recordStatement(String sql, long rows, long jdbcNanos) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.queries++;
+            scope.rows += rows;
+            scope.jdbcNanos += jdbcNanos;
+            if (scope.statements != null) {
+                scope.statements.add(sql);
+            }
+        }
+    }
+
+    static void recordRowRead() {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.rows++;
+        }
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private final List<String> statements;
+        private long queries;
+        private long rows;
+        private long jdbcNanos;
+
+        private Scope(Scope parent, boolean capture) {
+            this.parent = parent;
+            this.statements = capture ? new ArrayList<>() : null;
+        }
+
+        public long queries() {
+            return queries;
+        }
+
+        /**
+         * Строки, прочитанные из ResultSet, плюс строки, изменённые INSERT/UPDATE/DELETE.
+         */
+        public long rows() {
+            return rows;
+        }
+
+        public long jdbcNanos() {
+            return jdbcNanos;
+        }
+
+        /**
+         * Текст выполненных запросов; пусто, если область открыта без сохранения.
+         */
+        public List<String> statements() {
+            return statements == null ? List.of() : Collections.unmodifiableList(statements);
+        }
+
+        /**
+         * Обнулить счётчики, не закрывая область (например, после подготовки данных в тесте).
+         */
+        public void reset() {
+            queries = 0;
+            rows = 0;
+            jdbcNanos = 0;
+            if (statements != null) {
+                statements.clear();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (parent != null) {
+                parent.queries += queries;
+                parent.rows += rows;
+                parent.jdbcNanos += jdbcNanos;
+                if (parent.statements != null && statements != null) {
+                    parent.statements.addAll(statements);
+                }
+                CURRENT.set(parent);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.shop.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Слушатель datasource-proxy, пополняющий {@link QueryCounter}.
+ * <ul>
+ *     <li>каждое выполнение statement (batch — одно выполнение) — запрос, время в JDBC
+ *     и число изменённых строк для INSERT/UPDATE/DELETE;</li>
+ *     <li>ResultSet.next(), вернувший true, — прочитанная строка (только при proxyResultSet).</li>
+ * </ul>
+ */
+public class QueryCountingListener implements QueryExecutionListener, MethodExecutionListener {
+
+    private static final String STARTED_AT = "queryCounter.startedAt";
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(STARTED_AT, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long startedAt = execInfo.getCustomValue(STARTED_AT, Long.class);
+        long elapsedNanos = startedAt != null ? System.nanoTime() - startedAt : 0;
+        String sql = queryInfoList.stream()
+                .map(QueryInfo::getQuery)
+                .collect(Collectors.joining("; "));
+        QueryCounter.recordStatement(sql, updatedRows(execInfo.getResult()), elapsedNanos);
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        if (executionContext.getTarget() instanceof ResultSet
+                && "next".equals(executionContext.getMethod().getName())
+                && Boolean.TRUE.equals(executionContext.getResult())) {
+            QueryCounter.recordRowRead();
+        }
+    }
+
+    private static long updatedRows(Object result) {
+        if (result instanceof Integer count) {
+            return Math.max(count, 0);
+        }
+        if (result instanceof Long count) {
+            return Math.max(count, 0);
+        }
+        if (result instanceof int[] counts) {
+            long total = 0;
+            for (int count : counts) {
+                // Statement.SUCCESS_NO_INFO (-2): драйвер не сообщил число строк — так pgjdbc
+                // с reWriteBatchedInserts отвечает на каждый INSERT батча, считаем по строке
+                total += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+            }
+            return total;
+        }
+        return 0;
+    }
+}
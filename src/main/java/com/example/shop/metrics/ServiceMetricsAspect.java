@@ -0,0 +1,99 @@
+package com.example.shop.metrics;
+
+import com.example.shop.dto.common.CursorPageDto;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики методов сервисов, помеченных {@link io.micrometer.core.annotation.Timed}, с тегами class и method:
+ * <ul>
+ *     <li>shop.service.payload.size — число элементов в возвращённой странице или коллекции;</li>
+ *     <li>shop.service.queries, shop.service.rows, shop.service.jdbc — SQL, выполненный внутри вызова.</li>
+ * </ul>
+ * Время и ошибки тех же методов пишет TimedAspect в shop.service.
+ * <p>
+ * Аспект снаружи транзакции: flush при commit тоже попадает в счётчики метода.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServiceMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    public ServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@within(io.micrometer.core.annotation.Timed) && execution(public * *(..))")
+    public Object recordServiceMetrics(ProceedingJoinPoint joinPoint) throws Throwable {
+        Tags tags = Tags.of(
+                "class", joinPoint.getSignature().getDeclaringTypeName(),
+                "method", joinPoint.getSignature().getName());
+
+        Object result;
+        try (QueryCounter.Scope scope = QueryCounter.start()) {
+            try {
+                result = joinPoint.proceed();
+            } finally {
+                recordQueries(tags, scope);
+            }
+        }
+
+        int size = sizeOf(result);
+        if (size >= 0) {
+            DistributionSummary.builder("shop.service.payload.size")
+                    .description("Число элементов в ответе метода сервиса")
+                    .baseUnit("items")
+                    .tags(tags)
+                    .register(meterRegistry)
+                    .record(size);
+        }
+        return result;
+    }
+
+    private void recordQueries(Tags tags, QueryCounter.Scope scope) {
+        DistributionSummary.builder("shop.service.queries")
+                .description("Число SQL-запросов за вызов метода сервиса")
+                .baseUnit("queries")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(scope.queries());
+        DistributionSummary.builder("shop.service.rows")
+                .description("Строк, прочитанных и изменённых за вызов метода сервиса")
+                .baseUnit("rows")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(scope.rows());
+        Timer.builder("shop.service.jdbc")
+                .description("Время в JDBC за вызов метода сервиса")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(scope.jdbcNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private static int sizeOf(Object result) {
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof CursorPageDto<?> page) {
+            return page.getContent() == null ? 0 : page.getContent().size();
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.shop.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JDBC-доступ к inventory_journal (write-behind журнал in-memory складского учёта).
+ */
+@Slf4j
+@Repository
+public class InventoryJournalRepository {
+
+    private static final String APPEND_SQL = """
+            INSERT INTO inventory_journal (product_id, quantity)
+            SELECT r.id, r.qty
+              FROM unnest(?::bigint[], ?::int[]) AS r(id, qty)
+            """;
+
+    /**
+     * Доступный остаток = products.stock минус ещё не применённые списания из журнала.
+     */
+    private static final String AVAILABLE_STOCK_SQL = """
+            SELECT p.id, p.stock - COALESCE(j.qty, 0) AS available
+              FROM products p
+              LEFT JOIN (SELECT product_id, sum(quantity) AS qty
+                           FROM inventory_journal
+                          WHERE product_id = ANY(?::bigint[])
+                          GROUP BY product_id) j ON j.product_id = p.id
+             WHERE p.id = ANY(?::bigint[])
+            """;
+
+    /**
+     * Забирает пачку строк журнала и одним запросом применяет суммарные дельты к products.
+     * SKIP LOCKED позволяет нескольким экземплярам flush работать параллельно.
+     */
+    private static final String FLUSH_SQL = """
+            WITH drained AS (
+                DELETE FROM inventory_journal
+                 WHERE id IN (SELECT id
+                                FROM inventory_journal
+                               ORDER BY id
+                               LIMIT ?
+                                 FOR UPDATE SKIP LOCKED)
+                RETURNING product_id, quantity
+            ), totals AS (
+                SELECT product_id, sum(quantity) AS qty
+                  FROM drained
+                 GROUP BY product_id
+            )
+            UPDATE products p
+               SET stock = p.stock - totals.qty
+              FROM totals
+             WHERE p.id = totals.product_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public InventoryJournalRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void append(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        Long[] ids = quantities.keySet().toArray(new Long[0]);
+        Integer[] qtys = quantities.values().toArray(new Integer[0]);
+
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(APPEND_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            ps.setArray(2, con.createArrayOf("integer", qtys));
+            return ps;
+        });
+    }
+
+    public Map<Long, Long> findAvailableStock(Collection<Long> productIds) {
+        Map<Long, Long> available = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return available;
+        }
+        Long[] ids = productIds.toArray(new Long[0]);
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(AVAILABLE_STOCK_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            ps.setArray(2, con.createArrayOf("bigint", ids));
+            return ps;
+        }, rs -> {
+            available.put(rs.getLong("id"), rs.getLong("available"));
+        });
+        return available;
+    }
+
+    /**
+     * @return количество товаров, у которых обновлён stock
+     */
+    public int flush(int batchSize) {
+        int updated = jdbcTemplate.update(FLUSH_SQL, batchSize);
+        log.debug("Flush журнала остатков: batchSize={}, обновлено товаров={}", batchSize, updated);
+        return updated;
+    }
+}
@@ -1,24 +1,89 @@
 package com.example.shop.repository;
 
+import com.example.shop.dto.order.OrderSummaryDto;
 import com.example.shop.entity.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
 
+    /*
+     * Постраничная выборка заказов в два шага:
+     * 1) страница id считается в SQL (LIMIT/OFFSET без join по items);
+     * 2) items подтягиваются одним запросом только для id этой страницы.
+     * EntityGraph по коллекции вместе с Pageable заставлял Hibernate пагинировать в памяти (HHH000104).
+     */
 
-    @Override
-    @EntityGraph(attributePaths = {"items", "items.product", "user"})
-    Page<Order> findAll(Pageable pageable);
+    @Query(value = "select o.id from Order o order by o.createdAt desc, o.id desc",
+            countQuery = "select count(o) from Order o")
+    Page<Long> findPageIds(Pageable pageable);
+
+    @Query(value = "select o.id from Order o where o.user.id = :userId order by o.createdAt desc, o.id desc",
+            countQuery = "select count(o) from Order o where o.user.id = :userId")
+    Page<Long> findPageIdsByUserId(@Param("userId") Long userId, Pageable pageable);
 
+    /*
+     * Keyset-пагинация по (created_at, id): первый шаг возвращает только id, дальше — findAllByIdIn.
+     */
+
+    @Query(value = """
+            SELECT o.id
+              FROM orders o
+             WHERE (o.created_at, o.id) < (:createdAt, :id)
+             ORDER BY o.created_at DESC, o.id DESC
+             LIMIT :limit
+            """, nativeQuery = true)
+    List<Long> findIdsAfter(@Param("createdAt") LocalDateTime createdAt,
+                            @Param("id") Long id,
+                            @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT o.id
+              FROM orders o
+             WHERE o.user_id = :userId
+               AND (o.created_at, o.id) < (:createdAt, :id)
+             ORDER BY o.created_at DESC, o.id DESC
+             LIMIT :limit
+            """, nativeQuery = true)
+    List<Long> findIdsByUserIdAfter(@Param("userId") Long userId,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") Long id,
+                                    @Param("limit") int limit);
 
     @EntityGraph(attributePaths = {"items", "items.product", "user"})
-    Page<Order> findAllByUserId(Long userId, Pageable pageable);
+    List<Order> findAllByIdIn(Collection<Long> ids);
+
+    /**
+     * Пачка старейших заказов, ожидающих резервирования. Строки заблокированы до конца транзакции
+     * обработчика; SKIP LOCKED позволяет нескольким обработчикам (и узлам) разбирать очередь параллельно.
+     */
+    @Query(value = """
+            SELECT o.id
+              FROM orders o
+             WHERE o.status = 'PENDING'
+             ORDER BY o.id
+             LIMIT :limit
+               FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<Long> lockPendingIds(@Param("limit") int limit);
 
+    @Query(value = """
+            select new com.example.shop.dto.order.OrderSummaryDto(o.id, o.totalPrice, o.status, o.createdAt)
+              from Order o
+             where o.user.id = :userId
+             order by o.createdAt desc, o.id desc
+            """,
+            countQuery = "select count(o) from Order o where o.user.id = :userId")
+    Page<OrderSummaryDto> findSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
 
     @Override
     @EntityGraph(attributePaths = {"items", "items.product", "user"})
@@ -0,0 +1,18 @@
+package com.example.shop.repository;
+
+import com.example.shop.dto.order.OrderExportDto;
+
+import java.util.function.Consumer;
+
+public interface OrderRepositoryCustom {
+
+    /**
+     * Все заказы по возрастанию id вместе с позициями — по строке на заказ, без сортировки всей таблицы
+     * и без сущностей в persistence context. Строки читаются курсором по fetchSize штук,
+     * поэтому память не зависит от числа заказов.
+     * <p>
+     * Курсор PostgreSQL работает только внутри транзакции: вызывать из (read-only) транзакции,
+     * иначе драйвер прочитает весь результат в память.
+     */
+    void forEachForExport(int fetchSize, Consumer<OrderExportDto> consumer);
+}
@@ -0,0 +1,82 @@
+package com.example.shop.repository;
+
+import com.example.shop.dto.order.OrderExportDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+@Slf4j
+public class OrderRepositoryImpl implements OrderRepositoryCustom {
+
+    /**
+     * Заказы идут в порядке orders_pkey, позиции каждого собираются в массивы подзапросом
+     * по idx_order_items_order_id. В отличие от JOIN + ORDER BY, план не сортирует и не хэширует
+     * всю таблицу позиций: первая строка уходит клиенту сразу, а сервер держит в памяти один заказ.
+     */
+    private static final String EXPORT_SQL = """
+            SELECT o.id, o.user_id, o.status, o.status_reason, o.total_price, o.created_at, o.updated_at,
+                   i.product_ids, i.quantities, i.prices
+              FROM orders o
+             CROSS JOIN LATERAL (
+                   SELECT array_agg(oi.product_id ORDER BY oi.id) AS product_ids,
+                          array_agg(oi.quantity ORDER BY oi.id) AS quantities,
+                          array_agg(oi.price ORDER BY oi.id) AS prices
+                     FROM order_items oi
+                    WHERE oi.order_id = o.id
+                   ) i
+             ORDER BY o.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void forEachForExport(int fetchSize, Consumer<OrderExportDto> consumer) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(EXPORT_SQL);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, rs -> {
+            consumer.accept(toExportDto(rs));
+        });
+    }
+
+    private static OrderExportDto toExportDto(ResultSet rs) throws SQLException {
+        OrderExportDto order = new OrderExportDto();
+        order.setId(rs.getLong("id"));
+        order.setUserId(rs.getLong("user_id"));
+        order.setStatus(rs.getString("status"));
+        order.setStatusReason(rs.getString("status_reason"));
+        order.setTotalPrice(rs.getBigDecimal("total_price"));
+        order.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        order.setUpdatedAt(rs.getObject("updated_at", LocalDateTime.class));
+
+        // у заказа без позиций array_agg возвращает NULL
+        Array productIdArray = rs.getArray("product_ids");
+        if (productIdArray == null) {
+            order.setItems(List.of());
+            return order;
+        }
+        Long[] productIds = (Long[]) productIdArray.getArray();
+        Integer[] quantities = (Integer[]) rs.getArray("quantities").getArray();
+        BigDecimal[] prices = (BigDecimal[]) rs.getArray("prices").getArray();
+        List<OrderExportDto.Item> items = new ArrayList<>(productIds.length);
+        for (int i = 0; i < productIds.length; i++) {
+            items.add(new OrderExportDto.Item(productIds[i], quantities[i], prices[i]));
+        }
+        order.setItems(items);
+        return order;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.shop.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * JDBC-доступ к outbox_events.
+ */
+@Repository
+public class OutboxRepository {
+
+    private static final String APPEND_SQL = """
+            INSERT INTO outbox_events (exchange, routing_key, event_type, aggregate_id, payload)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    /**
+     * Пачка старейших событий. Строки остаются заблокированными до конца транзакции relay,
+     * SKIP LOCKED позволяет нескольким узлам публиковать параллельно, не дублируя друг друга.
+     */
+    private static final String LOCK_BATCH_SQL = """
+            SELECT id, exchange, routing_key, event_type, aggregate_id, payload, created_at
+              FROM outbox_events
+             ORDER BY id
+             LIMIT ?
+               FOR UPDATE SKIP LOCKED
+            """;
+
+    private static final String DELETE_SQL = "DELETE FROM outbox_events WHERE id = ANY(?::bigint[])";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OutboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void append(String exchange, String routingKey, String eventType, Long aggregateId, String payload) {
+        jdbcTemplate.update(APPEND_SQL, exchange, routingKey, eventType, aggregateId, payload);
+    }
+
+    public List<OutboxEvent> lockBatch(int limit) {
+        return jdbcTemplate.query(LOCK_BATCH_SQL, (rs, rowNum) -> new OutboxEvent(
+                rs.getLong("id"),
+                rs.getString("exchange"),
+                rs.getString("routing_key"),
+                rs.getString("event_type"),
+                rs.getLong("aggregate_id"),
+                rs.getString("payload"),
+                rs.getTimestamp("created_at").toLocalDateTime()
+        ), limit);
+    }
+
+    public void delete(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(DELETE_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        });
+    }
+
+    public record OutboxEvent(Long id,
+                              String exchange,
+                              String routingKey,
+                              String eventType,
+                              Long aggregateId,
+                              String payload,
+                              LocalDateTime createdAt) {
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.shop.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Хранилище ключей идемпотентности обработанных сообщений (processed_messages).
+ */
+@Repository
+public class ProcessedMessageRepository {
+
+    /**
+     * Возвращает только ключи, которых ещё не было: уже обработанные (в том числе
+     * повторы внутри одной пачки) отбрасываются ON CONFLICT DO NOTHING.
+     */
+    private static final String MARK_SQL = """
+            INSERT INTO processed_messages (message_id)
+            SELECT unnest(?::varchar[])
+            ON CONFLICT (message_id) DO NOTHING
+            RETURNING message_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProcessedMessageRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Set<String> markProcessed(Collection<String> messageIds) {
+        Set<String> fresh = new HashSet<>();
+        if (messageIds.isEmpty()) {
+            return fresh;
+        }
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(MARK_SQL);
+            ps.setArray(1, con.createArrayOf("varchar", messageIds.toArray()));
+            return ps;
+        }, rs -> {
+            fresh.add(rs.getString(1));
+        });
+        return fresh;
+    }
+
+    public int deleteProcessedBefore(LocalDateTime threshold) {
+        return jdbcTemplate.update("DELETE FROM processed_messages WHERE processed_at < ?", threshold);
+    }
+}
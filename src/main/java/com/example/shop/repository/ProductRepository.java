@@ -4,8 +4,28 @@ import com.example.shop.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
 
     Page<Product> findAllByActiveTrue(Pageable pageable);
+
+    /**
+     * Keyset-пагинация: активные товары строго "после" курсора (created_at, id), сначала новые.
+     */
+    @Query(value = """
+            SELECT *
+              FROM products p
+             WHERE p.active
+               AND (p.created_at, p.id) < (:createdAt, :id)
+             ORDER BY p.created_at DESC, p.id DESC
+             LIMIT :limit
+            """, nativeQuery = true)
+    List<Product> findActiveAfter(@Param("createdAt") LocalDateTime createdAt,
+                                  @Param("id") Long id,
+                                  @Param("limit") int limit);
 }
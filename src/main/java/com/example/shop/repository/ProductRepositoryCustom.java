@@ -0,0 +1,119 @@
+package com.example.shop.repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Атомарно списывает остатки сразу по нескольким товарам одним UPDATE.
+     * Строки блокируются в порядке возрастания id (без взаимных блокировок между корзинами),
+     * а списание происходит только если stock >= запрошенного количества.
+     *
+     * @param quantities productId -> количество к списанию
+     * @return id товаров, по которым остаток действительно списан
+     */
+    Set<Long> decrementStock(Map<Long, Integer> quantities);
+
+    /**
+     * Текущие остатки напрямую из БД, в обход persistence context.
+     *
+     * @return productId -> stock
+     */
+    Map<Long, Integer> findStockByIds(Collection<Long> ids);
+
+    /**
+     * Полнотекстовый поиск по активным товарам (search_vector, GIN-индекс), сначала самые релевантные.
+     * Запрос — в синтаксисе websearch_to_tsquery: слова через пробел, "фраза", or, -исключение.
+     * <p>
+     * Ранжируются не больше maxCandidates совпадений — самые новые товары (по убыванию id): для очень частых
+     * слов ранжирование приблизительное, зато время запроса не растёт с размером каталога, а результат
+     * одинаков от запроса к запросу.
+     * <p>
+     * Запрос без слов, по которым можно искать в индексе (только исключения или стоп-слова), не выполняется:
+     * он свёлся бы к перебору всех товаров.
+     *
+     * @return id товаров страницы в порядке релевантности и число найденных (не больше maxCandidates)
+     */
+    SearchHits searchActive(String query, long offset, int limit, int maxCandidates);
+
+    /**
+     * @param searchable false — в запросе нет слов для поиска по индексу, ids пуст
+     */
+    record SearchHits(List<Long> ids, long total, boolean searchable) {
+    }
+
+    /**
+     * Страница каталога: id активных товаров по фильтру в заданном порядке.
+     */
+    List<Long> findCatalogPage(CatalogFilter filter, CatalogSort sort, long offset, int limit);
+
+    /**
+     * Счётчики фасетов одним запросом (GROUPING SETS), без отдельного count(*) на каждый фасет.
+     * Фасеты "дизъюнктивные": счётчики категорий учитывают все фильтры, кроме категории,
+     * счётчики ценовых диапазонов — все, кроме цены. Так видно, сколько товаров останется,
+     * если переключить категорию или диапазон.
+     *
+     * @param priceBounds возрастающие границы диапазонов цены: [b1, b2), [b2, b3), ..., [bn, ∞)
+     */
+    CatalogFacets countCatalogFacets(CatalogFilter filter, BigDecimal[] priceBounds);
+
+    /**
+     * Фильтр каталога. Пустые поля не фильтруют; priceFrom включительно, priceTo — нет,
+     * как у границ ценовых фасетов.
+     */
+    record CatalogFilter(Long categoryId, BigDecimal priceFrom, BigDecimal priceTo, boolean inStock) {
+
+        boolean hasPrice() {
+            return priceFrom != null || priceTo != null;
+        }
+    }
+
+    enum CatalogSort {
+        ID("p.id"),
+        PRICE_ASC("p.price, p.id"),
+        PRICE_DESC("p.price DESC, p.id DESC"),
+        NEWEST("p.created_at DESC, p.id DESC");
+
+        private final String orderBy;
+
+        CatalogSort(String orderBy) {
+            this.orderBy = orderBy;
+        }
+
+        String orderBy() {
+            return orderBy;
+        }
+    }
+
+    /**
+     * @param total         число товаров, подходящих под все фильтры
+     * @param categories    categoryId -> число товаров (без нулевых)
+     * @param priceBuckets  номер диапазона (1..n, как у width_bucket) -> число товаров (без нулевых)
+     */
+    record CatalogFacets(long total, Map<Long, Long> categories, Map<Integer, Long> priceBuckets) {
+    }
+
+    /**
+     * Вставляет новые товары (активные, created_at = now()) одним INSERT ... SELECT FROM unnest.
+     * id берутся из products_id_seq теми же блоками, что и у Hibernate (pooled-lo, V12); id в аргументах игнорируется.
+     */
+    void insertImported(List<ImportedProduct> products);
+
+    /**
+     * Перезаписывает существующие товары по id одним UPDATE ... FROM unnest; active не меняется.
+     * id в списке не должны повторяться.
+     *
+     * @return id товаров, которые нашлись и обновлены
+     */
+    Set<Long> updateImported(List<ImportedProduct> products);
+
+    /**
+     * Строка массового импорта; id == null — новый товар.
+     */
+    record ImportedProduct(Long id, String name, String description, BigDecimal price, int stock, long categoryId) {
+    }
+}
@@ -0,0 +1,370 @@
+package com.example.shop.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Slf4j
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    /**
+     * CTE locked берёт блокировки строк строго по возрастанию id, поэтому две корзины
+     * с пересекающимися товарами не могут заблокировать друг друга (deadlock).
+     * Условие stock >= qty перепроверяется на актуальной версии строки после ожидания блокировки,
+     * а заведомо распроданные товары не блокируются вовсе — отказ не ждёт чужих транзакций.
+     */
+    private static final String DECREMENT_STOCK_SQL = """
+            WITH req AS (
+                SELECT r.id, r.qty
+                  FROM unnest(?::bigint[], ?::int[]) AS r(id, qty)
+            ), locked AS (
+                SELECT p.id
+                  FROM products p
+                  JOIN req ON req.id = p.id
+                 WHERE p.stock >= req.qty
+                 ORDER BY p.id
+                   FOR NO KEY UPDATE OF p
+            )
+            UPDATE products p
+               SET stock = p.stock - req.qty
+              FROM req
+              JOIN locked ON locked.id = req.id
+             WHERE p.id = req.id
+               AND p.stock >= req.qty
+            RETURNING p.id
+            """;
+
+    private static final String FIND_STOCK_SQL = """
+            SELECT id, stock
+              FROM products
+             WHERE id = ANY(?::bigint[])
+            """;
+
+    /**
+     * ts_rank считается только по кандидатам (LIMIT до сортировки), total — count(*) по тем же кандидатам
+     * в этом же запросе. Страница присоединяется к строке с total через LEFT JOIN: за последней страницей
+     * приходит одна строка с id = NULL, и total не теряется.
+     */
+    private static final String SEARCH_SQL = """
+            WITH q AS (
+                SELECT query, querytree(query) NOT IN ('T', '') AS searchable
+                  FROM websearch_to_tsquery('russian', ?) AS query
+            ), candidates AS (
+                SELECT p.id
+                  FROM products p, q
+                 WHERE q.searchable
+                   AND p.active
+                   AND p.search_vector @@ q.query
+                 ORDER BY p.id DESC
+                 LIMIT ?
+            ), ranked AS (
+                SELECT p.id, ts_rank(p.search_vector, q.query) AS rank
+                  FROM candidates c
+                  JOIN products p ON p.id = c.id
+                 CROSS JOIN q
+            ), page AS (
+                SELECT r.id, r.rank
+                  FROM ranked r
+                 ORDER BY r.rank DESC, r.id
+                OFFSET ?
+                 LIMIT ?
+            )
+            SELECT page.id, t.total, q.searchable
+              FROM q
+             CROSS JOIN (SELECT count(*) AS total FROM candidates) t
+              LEFT JOIN page ON TRUE
+             ORDER BY page.rank DESC, page.id
+            """;
+
+    /**
+     * Один проход по активным товарам: каждая строка помечается, подходит ли она под фильтр категории
+     * и под фильтр цены, и попадает сразу в три группировки — по категории, по ценовому диапазону и общую.
+     * Условия подставляются в {@link #countCatalogFacets}: %1$s — category_match, %2$s — price_match,
+     * %3$s — дополнительные условия WHERE.
+     */
+    private static final String CATALOG_FACETS_SQL = """
+            WITH f AS (
+                SELECT p.category_id,
+                       width_bucket(p.price, ?::numeric[]) AS bucket,
+                       (%1$s) AS category_match,
+                       (%2$s) AS price_match
+                  FROM products p
+                 WHERE p.active%3$s
+            )
+            SELECT GROUPING(f.category_id, f.bucket) AS grouping_set,
+                   f.category_id,
+                   f.bucket,
+                   count(*) FILTER (WHERE f.price_match) AS category_count,
+                   count(*) FILTER (WHERE f.category_match) AS bucket_count,
+                   count(*) FILTER (WHERE f.category_match AND f.price_match) AS total
+              FROM f
+             GROUP BY GROUPING SETS ((f.category_id), (f.bucket), ())
+            """;
+
+    /**
+     * Каждый nextval — нижняя граница блока из ID_BLOCK_SIZE id (increment_by последовательности).
+     */
+    private static final String ALLOCATE_IDS_SQL = """
+            SELECT nextval('products_id_seq')
+              FROM generate_series(1, ?)
+            """;
+
+    private static final String INSERT_IMPORTED_SQL = """
+            INSERT INTO products (id, name, description, price, stock, category_id, active, created_at)
+            SELECT r.id, r.name, r.description, r.price, r.stock, r.category_id, TRUE, now()
+              FROM unnest(?::bigint[], ?::varchar[], ?::varchar[], ?::numeric[], ?::int[], ?::bigint[])
+                   AS r(id, name, description, price, stock, category_id)
+            """;
+
+    private static final String UPDATE_IMPORTED_SQL = """
+            UPDATE products p
+               SET name = r.name,
+                   description = r.description,
+                   price = r.price,
+                   stock = r.stock,
+                   category_id = r.category_id
+              FROM unnest(?::bigint[], ?::varchar[], ?::varchar[], ?::numeric[], ?::int[], ?::bigint[])
+                   AS r(id, name, description, price, stock, category_id)
+             WHERE p.id = r.id
+            RETURNING p.id
+            """;
+
+    // allocationSize products_id_seq в @SequenceGenerator и INCREMENT BY в V12
+    private static final int ID_BLOCK_SIZE = 50;
+
+    // значения GROUPING(category_id, bucket): 1 — группа по категории, 2 — по диапазону, 3 — итог
+    private static final int GROUPED_BY_CATEGORY = 1;
+    private static final int GROUPED_BY_BUCKET = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Set<Long> decrementStock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return Set.of();
+        }
+
+        Long[] ids = quantities.keySet().toArray(new Long[0]);
+        Integer[] qtys = quantities.values().toArray(new Integer[0]);
+
+        Set<Long> reserved = new HashSet<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(DECREMENT_STOCK_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            ps.setArray(2, con.createArrayOf("integer", qtys));
+            return ps;
+        }, rs -> {
+            reserved.add(rs.getLong(1));
+        });
+
+        log.debug("Пакетное списание остатков: товаров={}, списано={}", ids.length, reserved.size());
+        return reserved;
+    }
+
+    @Override
+    public Map<Long, Integer> findStockByIds(Collection<Long> ids) {
+        Map<Long, Integer> stock = new HashMap<>();
+        if (ids.isEmpty()) {
+            return stock;
+        }
+
+        Long[] idArray = ids.toArray(new Long[0]);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(FIND_STOCK_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", idArray));
+            return ps;
+        }, rs -> {
+            stock.put(rs.getLong("id"), rs.getInt("stock"));
+        });
+        return stock;
+    }
+
+    @Override
+    public SearchHits searchActive(String query, long offset, int limit, int maxCandidates) {
+        List<Long> ids = new ArrayList<>(limit);
+        long[] total = {0};
+        boolean[] searchable = {false};
+        jdbcTemplate.query(SEARCH_SQL, rs -> {
+            long id = rs.getLong("id");
+            if (!rs.wasNull()) {
+                ids.add(id);
+            }
+            total[0] = rs.getLong("total");
+            searchable[0] = rs.getBoolean("searchable");
+        }, query, maxCandidates, offset, limit);
+
+        log.debug("Поиск товаров: query='{}', offset={}, найдено={}, на странице={}",
+                query, offset, total[0], ids.size());
+        return new SearchHits(ids, total[0], searchable[0]);
+    }
+
+    @Override
+    public List<Long> findCatalogPage(CatalogFilter filter, CatalogSort sort, long offset, int limit) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT p.id FROM products p WHERE p.active");
+        if (filter.categoryId() != null) {
+            sql.append(" AND ").append(categoryCondition(filter, args));
+        }
+        if (filter.hasPrice()) {
+            sql.append(" AND ").append(priceCondition(filter, args));
+        }
+        if (filter.inStock()) {
+            sql.append(" AND p.stock > 0");
+        }
+        sql.append(" ORDER BY ").append(sort.orderBy()).append(" OFFSET ? LIMIT ?");
+        args.add(offset);
+        args.add(limit);
+
+        return jdbcTemplate.queryForList(sql.toString(), Long.class, args.toArray());
+    }
+
+    @Override
+    public CatalogFacets countCatalogFacets(CatalogFilter filter, BigDecimal[] priceBounds) {
+        List<Object> args = new ArrayList<>();
+        String categoryMatch = filter.categoryId() != null ? categoryCondition(filter, args) : "TRUE";
+        String priceMatch = filter.hasPrice() ? priceCondition(filter, args) : "TRUE";
+
+        StringBuilder where = new StringBuilder();
+        if (filter.inStock()) {
+            where.append(" AND p.stock > 0");
+        }
+        if (filter.categoryId() != null && filter.hasPrice()) {
+            // строки, не подходящие ни под один из двух фильтров, не попадут ни в один счётчик
+            where.append(" AND (").append(categoryCondition(filter, args))
+                    .append(" OR ").append(priceCondition(filter, args)).append(')');
+        }
+        String sql = CATALOG_FACETS_SQL.formatted(categoryMatch, priceMatch, where);
+
+        long[] total = {0};
+        Map<Long, Long> categories = new HashMap<>();
+        Map<Integer, Long> priceBuckets = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("numeric", priceBounds));
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 2, args.get(i));
+            }
+            return ps;
+        }, rs -> {
+            int groupingSet = rs.getInt("grouping_set");
+            if (groupingSet == GROUPED_BY_CATEGORY) {
+                long count = rs.getLong("category_count");
+                long categoryId = rs.getLong("category_id");
+                if (count > 0 && !rs.wasNull()) {
+                    categories.put(categoryId, count);
+                }
+            } else if (groupingSet == GROUPED_BY_BUCKET) {
+                long count = rs.getLong("bucket_count");
+                int bucket = rs.getInt("bucket");
+                // 0 — цена ниже первой границы
+                if (count > 0 && bucket > 0) {
+                    priceBuckets.put(bucket, count);
+                }
+            } else {
+                total[0] = rs.getLong("total");
+            }
+        });
+
+        log.debug("Фасеты каталога: filter={}, всего={}, категорий={}, диапазонов={}",
+                filter, total[0], categories.size(), priceBuckets.size());
+        return new CatalogFacets(total[0], categories, priceBuckets);
+    }
+
+    @Override
+    public void insertImported(List<ImportedProduct> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+
+        List<Long> blocks = jdbcTemplate.queryForList(ALLOCATE_IDS_SQL, Long.class,
+                (products.size() + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE);
+        Long[] ids = new Long[products.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = blocks.get(i / ID_BLOCK_SIZE) + i % ID_BLOCK_SIZE;
+        }
+
+        int inserted = jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_IMPORTED_SQL);
+            bindImported(ps, con, ids, products);
+            return ps;
+        });
+        log.debug("Пакетная вставка товаров: строк={}, вставлено={}", products.size(), inserted);
+    }
+
+    @Override
+    public Set<Long> updateImported(List<ImportedProduct> products) {
+        if (products.isEmpty()) {
+            return Set.of();
+        }
+
+        Long[] ids = products.stream().map(ImportedProduct::id).toArray(Long[]::new);
+        Set<Long> updated = new HashSet<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(UPDATE_IMPORTED_SQL);
+            bindImported(ps, con, ids, products);
+            return ps;
+        }, rs -> {
+            updated.add(rs.getLong(1));
+        });
+
+        log.debug("Пакетное обновление товаров: строк={}, обновлено={}", products.size(), updated.size());
+        return updated;
+    }
+
+    private static void bindImported(PreparedStatement ps, Connection con, Long[] ids,
+                                     List<ImportedProduct> products) throws SQLException {
+        int size = products.size();
+        String[] names = new String[size];
+        String[] descriptions = new String[size];
+        BigDecimal[] prices = new BigDecimal[size];
+        Integer[] stocks = new Integer[size];
+        Long[] categoryIds = new Long[size];
+        for (int i = 0; i < size; i++) {
+            ImportedProduct product = products.get(i);
+            names[i] = product.name();
+            descriptions[i] = product.description();
+            prices[i] = product.price();
+            stocks[i] = product.stock();
+            categoryIds[i] = product.categoryId();
+        }
+        ps.setArray(1, con.createArrayOf("bigint", ids));
+        ps.setArray(2, con.createArrayOf("varchar", names));
+        ps.setArray(3, con.createArrayOf("varchar", descriptions));
+        ps.setArray(4, con.createArrayOf("numeric", prices));
+        ps.setArray(5, con.createArrayOf("integer", stocks));
+        ps.setArray(6, con.createArrayOf("bigint", categoryIds));
+    }
+
+    private static String categoryCondition(CatalogFilter filter, List<Object> args) {
+        args.add(filter.categoryId());
+        return "p.category_id = ?";
+    }
+
+    private static String priceCondition(CatalogFilter filter, List<Object> args) {
+        List<String> conditions = new ArrayList<>(2);
+        if (filter.priceFrom() != null) {
+            conditions.add("p.price >= ?");
+            args.add(filter.priceFrom());
+        }
+        if (filter.priceTo() != null) {
+            conditions.add("p.price < ?");
+            args.add(filter.priceTo());
+        }
+        return String.join(" AND ", conditions);
+    }
+}
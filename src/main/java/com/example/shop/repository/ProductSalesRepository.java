@@ -0,0 +1,70 @@
+package com.example.shop.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Агрегированные продажи по товарам (product_sales).
+ */
+@Repository
+public class ProductSalesRepository {
+
+    /**
+     * Один upsert на пачку: дельты уже сведены по product_id, поэтому каждая строка
+     * затрагивается не более одного раза.
+     */
+    private static final String ADD_SQL = """
+            INSERT INTO product_sales AS s (product_id, quantity, revenue, order_count, updated_at)
+            SELECT d.id, d.qty, d.revenue, d.orders, now()
+              FROM unnest(?::bigint[], ?::bigint[], ?::numeric[], ?::bigint[]) AS d(id, qty, revenue, orders)
+            ON CONFLICT (product_id) DO UPDATE
+               SET quantity    = s.quantity + EXCLUDED.quantity,
+                   revenue     = s.revenue + EXCLUDED.revenue,
+                   order_count = s.order_count + EXCLUDED.order_count,
+                   updated_at  = EXCLUDED.updated_at
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductSalesRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void add(Map<Long, SalesDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        // строки блокируются в порядке массива: одинаковый порядок id у всех пачек исключает deadlock
+        Long[] ids = new TreeMap<>(deltas).keySet().toArray(new Long[0]);
+        Long[] quantities = new Long[ids.length];
+        BigDecimal[] revenues = new BigDecimal[ids.length];
+        Long[] orders = new Long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            SalesDelta delta = deltas.get(ids[i]);
+            quantities[i] = delta.quantity();
+            revenues[i] = delta.revenue();
+            orders[i] = delta.orders();
+        }
+
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(ADD_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            ps.setArray(2, con.createArrayOf("bigint", quantities));
+            ps.setArray(3, con.createArrayOf("numeric", revenues));
+            ps.setArray(4, con.createArrayOf("bigint", orders));
+            return ps;
+        });
+    }
+
+    public record SalesDelta(long quantity, BigDecimal revenue, long orders) {
+
+        public SalesDelta plus(SalesDelta other) {
+            return new SalesDelta(quantity + other.quantity, revenue.add(other.revenue), orders + other.orders);
+        }
+    }
+}
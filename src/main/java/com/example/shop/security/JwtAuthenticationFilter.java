@@ -10,6 +10,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -17,17 +18,25 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/**
+ * JWT-аутентификация без запроса в users на каждый запрос: подпись проверяется один раз на токен
+ * (см. {@link JwtService#parse}), principal строится из claims (uid, role) и сверяется с {@link PrincipalCache}.
+ * Токены старого формата (без uid) по-прежнему проверяются через UserDetailsService.
+ */
 @Slf4j
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
 
     public JwtAuthenticationFilter(JwtService jwtService,
-                                   UserDetailsService userDetailsService) {
+                                   UserDetailsService userDetailsService,
+                                   PrincipalCache principalCache) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -47,10 +56,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         String token = authHeader.substring(7);
-        String username;
+        JwtClaims claims;
         try {
-            username = jwtService.extractUsername(token);
-            log.debug("Извлечён username из JWT: username={}, uri={}", username, requestUri);
+            claims = jwtService.parse(token);
+            log.debug("JWT проверен: username={}, uri={}", claims.username(), requestUri);
         } catch (Exception ex) {
             log.warn("Ошибка при разборе или валидации JWT для uri={}: {}", requestUri, ex.getMessage());
             log.debug("Подробности ошибки JWT", ex);
@@ -58,12 +67,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            log.debug("Аутентификация пользователя по JWT: username={}, uri={}", username, requestUri);
+        if (claims.username() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = resolvePrincipal(claims);
 
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-            if (jwtService.isTokenValid(token, userDetails)) {
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails,
@@ -74,12 +81,39 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                         new WebAuthenticationDetailsSource().buildDetails(request)
                 );
                 SecurityContextHolder.getContext().setAuthentication(authentication);
-                log.debug("JWT-аутентификация успешно установлена в SecurityContext: username={}", username);
+                log.debug("JWT-аутентификация успешно установлена в SecurityContext: username={}", claims.username());
             } else {
-                log.warn("JWT токен невалиден для username={}, uri={}", username, requestUri);
+                log.warn("JWT токен невалиден для username={}, uri={}", claims.username(), requestUri);
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private UserDetails resolvePrincipal(JwtClaims claims) {
+        String username = claims.username();
+        Long userId = claims.userId();
+
+        if (userId == null) {
+            log.debug("JWT без claim uid — загрузка пользователя по username={}", username);
+            try {
+                return userDetailsService.loadUserByUsername(username);
+            } catch (UsernameNotFoundException ex) {
+                return null;
+            }
+        }
+
+        UserDetailsImpl current = principalCache.get(userId).orElse(null);
+        if (current == null || !username.equals(current.getUsername())) {
+            // пользователь удалён или id больше не соответствует e-mail из токена
+            return null;
+        }
+
+        String tokenRole = claims.role();
+        if (!current.getRole().name().equals(tokenRole)) {
+            log.debug("Роль пользователя id={} изменилась после выдачи токена: {} -> {}",
+                    userId, tokenRole, current.getRole());
+        }
+        return current;
+    }
 }
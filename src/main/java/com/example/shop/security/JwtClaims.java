@@ -0,0 +1,13 @@
+package com.example.shop.security;
+
+import java.time.Instant;
+
+/**
+ * Проверенные claims JWT, нужные для аутентификации.
+ *
+ * @param userId    claim uid; {@code null} у токенов старого формата
+ * @param role      claim role; {@code null} у токенов старого формата
+ * @param expiresAt {@code null}, если у токена нет срока действия
+ */
+public record JwtClaims(String username, Long userId, String role, Instant expiresAt) {
+}
@@ -1,71 +1,171 @@
 package com.example.shop.security;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 
+/**
+ * Выпуск и проверка JWT.
+ * <p>
+ * Верификатор создаётся один раз. Токен, который уже прошёл проверку подписи, кэшируется
+ * по SHA-256 до истечения своего срока действия — повторные запросы с ним HMAC не пересчитывают.
+ * В кэше хранится хеш, а не сам токен.
+ */
 @Slf4j
 @Service
 public class JwtService {
 
+    // верхняя граница жизни проверенного токена в кэше (в том числе для токенов без exp)
+    private static final Duration MAX_CACHED_LIFETIME = Duration.ofMinutes(10);
+
+    /**
+     * id пользователя и роль в токене — по ним фильтр строит Authentication без запроса в users.
+     */
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+
     private final Algorithm algorithm;
+    private final JWTVerifier verifier;
     private final long expirationMs;
+    private final Cache<String, JwtClaims> verifiedTokens;
+    private final Timer generateTimer;
+    private final MeterRegistry meterRegistry;
 
     public JwtService(
             @Value("${jwt.secret}") String secret,
-            @Value("${jwt.expiration-ms}") long expirationMs
+            @Value("${jwt.expiration-ms}") long expirationMs,
+            @Value("${shop.security.token-cache.maximum-size:10000}") long tokenCacheSize,
+            MeterRegistry meterRegistry
     ) {
         this.algorithm = Algorithm.HMAC256(secret);
+        this.verifier = JWT.require(algorithm).build();
         this.expirationMs = expirationMs;
-        log.info("Инициализация JwtService с временем жизни токена {} мс", expirationMs);
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(tokenCacheSize)
+                .expireAfter(new UntilTokenExpires())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwtTokens");
+        this.meterRegistry = meterRegistry;
+        this.generateTimer = jwtTimer("generate", "success").register(meterRegistry);
+        log.info("Инициализация JwtService с временем жизни токена {} мс, кэш проверенных токенов: {}",
+                expirationMs, tokenCacheSize);
     }
 
     public String generateToken(UserDetails userDetails) {
+        return generateTimer.record(() -> sign(userDetails));
+    }
+
+    private String sign(UserDetails userDetails) {
         Date now = new Date();
         Date expiry = new Date(now.getTime() + expirationMs);
 
         log.debug("Генерация JWT для пользователя: username={}, expiresAt={}",
                 userDetails.getUsername(), expiry);
 
-        return JWT.create()
+        JWTCreator.Builder builder = JWT.create()
                 .withSubject(userDetails.getUsername())
                 .withIssuedAt(now)
-                .withExpiresAt(expiry)
-                .sign(algorithm);
+                .withExpiresAt(expiry);
+        if (userDetails instanceof UserDetailsImpl user) {
+            builder.withClaim(CLAIM_USER_ID, user.getId())
+                    .withClaim(CLAIM_ROLE, user.getRole().name());
+        }
+        return builder.sign(algorithm);
     }
 
-    public String extractUsername(String token) {
-        DecodedJWT jwt = decodeToken(token);
-        String username = jwt.getSubject();
-        log.debug("Из JWT извлечён subject (username)={}", username);
-        return username;
+    /**
+     * Проверка подписи и срока действия, один раз на токен (до его истечения).
+     *
+     * @throws com.auth0.jwt.exceptions.JWTVerificationException если токен невалиден или истёк
+     */
+    public JwtClaims parse(String token) {
+        String key = sha256(token);
+        JwtClaims cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        log.debug("Декодирование и проверка JWT");
+        Timer.Sample sample = Timer.start(meterRegistry);
+        DecodedJWT jwt;
+        try {
+            jwt = verifier.verify(token);
+        } catch (JWTVerificationException ex) {
+            sample.stop(jwtTimer("verify", "invalid").register(meterRegistry));
+            throw ex;
+        }
+        sample.stop(jwtTimer("verify", "success").register(meterRegistry));
+        JwtClaims claims = new JwtClaims(
+                jwt.getSubject(),
+                jwt.getClaim(CLAIM_USER_ID).asLong(),
+                jwt.getClaim(CLAIM_ROLE).asString(),
+                jwt.getExpiresAtAsInstant()
+        );
+        verifiedTokens.put(key, claims);
+        return claims;
     }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        DecodedJWT jwt = decodeToken(token);
-        String username = jwt.getSubject();
-        Date expiresAt = jwt.getExpiresAt();
-        boolean notExpired = (expiresAt == null || expiresAt.after(new Date()));
-        boolean matches = username.equals(userDetails.getUsername());
+    /**
+     * auth.jwt{operation=generate|verify, outcome=success|invalid}; verify — только проверки подписи,
+     * попадания в кэш проверенных токенов видны в cache_gets{cache=jwtTokens}.
+     */
+    private static Timer.Builder jwtTimer(String operation, String outcome) {
+        return Timer.builder("auth.jwt")
+                .description("Время выпуска и проверки подписи JWT")
+                .tag("operation", operation)
+                .tag("outcome", outcome);
+    }
 
-        boolean valid = matches && notExpired;
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
 
-        log.debug("Проверка валидности JWT: usernameFromToken={}, usernameExpected={}, notExpired={}, valid={}",
-                username, userDetails.getUsername(), notExpired, valid);
+    private static final class UntilTokenExpires implements Expiry<String, JwtClaims> {
 
-        return valid;
-    }
+        @Override
+        public long expireAfterCreate(String key, JwtClaims claims, long currentTime) {
+            if (claims.expiresAt() == null) {
+                return MAX_CACHED_LIFETIME.toNanos();
+            }
+            Duration remaining = Duration.between(Instant.now(), claims.expiresAt());
+            return Math.max(0, Math.min(remaining.toNanos(), MAX_CACHED_LIFETIME.toNanos()));
+        }
 
-    private DecodedJWT decodeToken(String token) {
-        log.debug("Декодирование и проверка JWT");
-        return JWT.require(algorithm)
-                .build()
-                .verify(token);
+        @Override
+        public long expireAfterUpdate(String key, JwtClaims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, JwtClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,61 @@
+package com.example.shop.security;
+
+import com.example.shop.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Актуальное состояние пользователей для JWT-аутентификации: короткий TTL и ограниченный размер.
+ * <p>
+ * Токен несёт id и роль, но роль могли сменить, а пользователя — удалить. Вместо запроса в users
+ * на каждый запрос фильтр сверяется с этим кэшем: изменения вступают в силу не позже чем через TTL.
+ * Удалённые пользователи тоже кэшируются (как пустое значение).
+ */
+@Slf4j
+@Component
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+    private final Cache<Long, Optional<UserDetailsImpl>> principals;
+
+    public PrincipalCache(UserRepository userRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${shop.security.principal-cache.maximum-size:10000}") long maximumSize,
+                          @Value("${shop.security.principal-cache.ttl:30s}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "principals");
+        log.info("Кэш пользователей для JWT: maximumSize={}, ttl={}", maximumSize, ttl);
+    }
+
+    /**
+     * Загрузка идёт вне Caffeine compute: внутри него держится монитор ConcurrentHashMap,
+     * и виртуальный поток, ждущий соединения с БД, закреплял бы за собой поток-носитель.
+     * Изредка пользователь загрузится дважды — это дешевле.
+     */
+    public Optional<UserDetailsImpl> get(Long userId) {
+        Optional<UserDetailsImpl> cached = principals.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        log.debug("Загрузка пользователя для кэша аутентификации: id={}", userId);
+        // пароль в кэше не нужен — аутентификация по токену его не проверяет
+        Optional<UserDetailsImpl> loaded = userRepository.findById(userId)
+                .map(user -> new UserDetailsImpl(user.getId(), user.getEmail(), null, user.getRole()));
+        principals.put(userId, loaded);
+        return loaded;
+    }
+}
@@ -2,13 +2,17 @@ package com.example.shop.security;
 
 import com.example.shop.entity.User;
 import com.example.shop.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+@Slf4j
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -22,4 +26,19 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
         return UserDetailsImpl.fromUser(user);
     }
+
+    /**
+     * Вызывается DaoAuthenticationProvider после успешного входа, если хеш пароля
+     * создан с меньшей стоимостью BCrypt, чем текущая.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        user.setPassword(newPassword);
+        userRepository.save(user);
+        log.info("Пароль пользователя перехеширован с текущей стоимостью BCrypt: id={}", user.getId());
+        return UserDetailsImpl.fromUser(user);
+    }
 }
@@ -0,0 +1,32 @@
+package com.example.shop.service;
+
+import java.util.List;
+import java.util.Map;
+
+public interface InventoryService {
+
+    /**
+     * Резервирует (списывает) остатки по всем позициям заказа атомарно:
+     * либо списаны все позиции, либо ни одной (вместе с откатом транзакции заказа).
+     *
+     * @param quantities productId -> запрошенное количество
+     * @throws com.example.shop.exception.BadRequestException если хотя бы одной позиции не хватает
+     */
+    void reserve(Map<Long, Integer> quantities);
+
+    /**
+     * То же, что {@link #reserve}, но нехватка не считается ошибкой и не помечает транзакцию на откат.
+     * Если вернулся непустой список, часть позиций могла быть уже списана: вызывающий откатывает
+     * их вместе со своей транзакцией или до своей точки сохранения.
+     *
+     * @param quantities productId -> запрошенное количество
+     * @return описания нехватки по позициям; пустой список — зарезервировано всё
+     */
+    List<String> tryReserve(Map<Long, Integer> quantities);
+
+    /**
+     * Сбрасывает закэшированное состояние остатка товара после изменения products.stock извне
+     * (например, администратором). Для учёта прямо в БД — ничего не делает.
+     */
+    void invalidate(Long productId);
+}
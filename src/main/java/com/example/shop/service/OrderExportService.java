@@ -0,0 +1,45 @@
+package com.example.shop.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Выгрузка всех заказов для отчётов одним потоком вместо постраничного обхода GET /api/orders.
+ */
+public interface OrderExportService {
+
+    /**
+     * Пишет все заказы по возрастанию id в out по мере чтения из БД; out не закрывается.
+     * Заказы читаются в одной read-only транзакции, поэтому выгрузка согласована на момент её начала.
+     *
+     * @return число выгруженных заказов
+     */
+    long exportOrders(Format format, OutputStream out) throws IOException;
+
+    enum Format {
+        /**
+         * По JSON-объекту заказа с массивом items на строку.
+         */
+        NDJSON("application/x-ndjson", "ndjson"),
+        /**
+         * По строке на позицию, поля заказа повторяются; заказ без позиций — одна строка с пустыми полями позиции.
+         */
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String fileExtension;
+
+        Format(String contentType, String fileExtension) {
+            this.contentType = contentType;
+            this.fileExtension = fileExtension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String fileExtension() {
+            return fileExtension;
+        }
+    }
+}
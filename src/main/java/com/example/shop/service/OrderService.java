@@ -1,7 +1,9 @@
 package com.example.shop.service;
 
+import com.example.shop.dto.common.CursorPageDto;
 import com.example.shop.dto.order.CreateOrderRequestDto;
 import com.example.shop.dto.order.OrderDto;
+import com.example.shop.dto.order.OrderSummaryDto;
 import com.example.shop.entity.enums.OrderStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -10,11 +12,23 @@ public interface OrderService {
 
     OrderDto create(CreateOrderRequestDto dto);
 
+    /**
+     * Асинхронное оформление: заказ сохраняется в статусе PENDING без резервирования остатков,
+     * итоговый статус (NEW или REJECTED) проставляет фоновый обработчик.
+     */
+    OrderDto submit(CreateOrderRequestDto dto);
+
     OrderDto getById(Long id);
 
     Page<OrderDto> getMyOrders(Pageable pageable);
 
+    Page<OrderSummaryDto> getMyOrderSummaries(Pageable pageable);
+
     Page<OrderDto> getAllOrders(Pageable pageable);
 
+    CursorPageDto<OrderDto> scrollMyOrders(String after, int size);
+
+    CursorPageDto<OrderDto> scrollAllOrders(String after, int size);
+
     OrderDto updateStatus(Long id, OrderStatus status);
 }
@@ -0,0 +1,28 @@
+package com.example.shop.service;
+
+import com.example.shop.dto.product.ProductImportResultDto;
+
+import java.io.InputStream;
+
+/**
+ * Массовая загрузка каталога. Поля строки: id (пусто — новый товар, иначе перезапись существующего),
+ * name, description, price, stock, category — название существующей категории.
+ * <p>
+ * Тело читается потоком и пишется пачками, каждая пачка фиксируется сразу: ошибка в строке
+ * не отменяет остальные, а попадает в отчёт с номером строки.
+ */
+public interface ProductImportService {
+
+    /**
+     * CSV в UTF-8 (RFC 4180), первая строка — заголовок с именами колонок в любом порядке;
+     * id и description необязательны.
+     *
+     * @throws com.example.shop.exception.BadRequestException если нет заголовка или обязательных колонок
+     */
+    ProductImportResultDto importCsv(InputStream body);
+
+    /**
+     * NDJSON: по JSON-объекту на строку, поля — как колонки CSV.
+     */
+    ProductImportResultDto importNdjson(InputStream body);
+}
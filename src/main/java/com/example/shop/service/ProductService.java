@@ -1,7 +1,11 @@
 package com.example.shop.service;
 
+import com.example.shop.dto.common.CursorPageDto;
 import com.example.shop.dto.product.CreateProductRequestDto;
+import com.example.shop.dto.product.ProductCatalogDto;
 import com.example.shop.dto.product.ProductDto;
+import com.example.shop.repository.ProductRepositoryCustom.CatalogFilter;
+import com.example.shop.repository.ProductRepositoryCustom.CatalogSort;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -9,6 +13,18 @@ public interface ProductService {
 
     Page<ProductDto> getProducts(Pageable pageable);
 
+    CursorPageDto<ProductDto> scrollProducts(String after, int size);
+
+    /**
+     * Каталог с фильтрами и сортировкой; в том же ответе — счётчики по категориям и ценовым диапазонам.
+     */
+    ProductCatalogDto getCatalog(CatalogFilter filter, CatalogSort sort, Pageable pageable);
+
+    /**
+     * Полнотекстовый поиск по названию и описанию активных товаров, сначала самые релевантные.
+     */
+    Page<ProductDto> search(String query, Pageable pageable);
+
     ProductDto getById(Long id);
 
     ProductDto create(CreateProductRequestDto dto);
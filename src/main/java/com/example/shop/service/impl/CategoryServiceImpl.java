@@ -7,6 +7,7 @@ import com.example.shop.exception.NotFoundException;
 import com.example.shop.mapper.CategoryMapper;
 import com.example.shop.repository.CategoryRepository;
 import com.example.shop.service.CategoryService;
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -14,6 +15,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Slf4j
+@Timed(value = "shop.service", histogram = true)
 @Service
 @Transactional
 public class CategoryServiceImpl implements CategoryService {
@@ -0,0 +1,68 @@
+package com.example.shop.service.impl;
+
+import com.example.shop.exception.BadRequestException;
+import com.example.shop.repository.ProductRepository;
+import com.example.shop.service.InventoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Складской учёт прямо в таблице products: одно условное UPDATE ... WHERE stock >= qty
+ * на всю корзину, без read-modify-write в Java и без @Version.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "shop.inventory.mode", havingValue = "database", matchIfMissing = true)
+public class DatabaseInventoryService implements InventoryService {
+
+    private final ProductRepository productRepository;
+
+    public DatabaseInventoryService(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @Override
+    @Transactional
+    public void reserve(Map<Long, Integer> quantities) {
+        List<String> shortages = tryReserve(quantities);
+        if (!shortages.isEmpty()) {
+            throw new BadRequestException(String.join("; ", shortages));
+        }
+    }
+
+    @Override
+    @Transactional
+    public List<String> tryReserve(Map<Long, Integer> quantities) {
+        Set<Long> reserved = productRepository.decrementStock(quantities);
+        if (reserved.size() == quantities.size()) {
+            log.debug("Остатки зарезервированы: товаров={}", reserved.size());
+            return List.of();
+        }
+
+        List<Long> failed = quantities.keySet().stream()
+                .filter(productId -> !reserved.contains(productId))
+                .toList();
+        Map<Long, Integer> available = productRepository.findStockByIds(failed);
+
+        List<String> shortages = new ArrayList<>();
+        for (Long productId : failed) {
+            shortages.add("Not enough stock for product id=" + productId +
+                    ". Requested=" + quantities.get(productId) +
+                    ", available=" + available.getOrDefault(productId, 0));
+        }
+        log.warn("Недостаточно остатков при резервировании: {}", shortages);
+        return shortages;
+    }
+
+    @Override
+    public void invalidate(Long productId) {
+        // состояние остатков не кэшируется — products.stock всегда актуален
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.shop.service.impl;
+
+import com.example.shop.exception.BadRequestException;
+import com.example.shop.exception.TooManyRequestsException;
+import com.example.shop.repository.InventoryJournalRepository;
+import com.example.shop.service.InventoryService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Складской учёт в памяти процесса для распродаж (shop.inventory.mode=memory).
+ * <p>
+ * Решение о резервировании принимается по {@link StripedStockCounter} без обращения к строке products,
+ * поэтому горячий товар не упирается в блокировку строки. В транзакции заказа пишется только
+ * журнал списаний (inventory_journal), а к products.stock дельты применяются пачками по расписанию.
+ * Журнал коммитится вместе с заказом, поэтому после падения неприменённые списания
+ * просто применяются следующим flush, а ledger при загрузке учитывает их в доступном остатке.
+ * <p>
+ * Режим рассчитан на один экземпляр приложения (или на шардирование товаров по экземплярам):
+ * каждый узел считает весь остаток своим.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "shop.inventory.mode", havingValue = "memory")
+public class InMemoryInventoryService implements InventoryService {
+
+    private final InventoryJournalRepository journalRepository;
+    private final int stripes;
+    private final int flushBatchSize;
+    private final long reloadTimeoutMs;
+
+    private final Map<Long, StripedStockCounter> ledger = new ConcurrentHashMap<>();
+
+    /**
+     * Идущие загрузки остатков из БД: productId -> метка загрузки. Сброс товара снимает метку,
+     * и загрузка, пересёкшаяся с ним, не кладёт прочитанное в ledger. Записи живут только на время загрузки.
+     */
+    private final Map<Long, Object> loading = new ConcurrentHashMap<>();
+
+    public InMemoryInventoryService(
+            InventoryJournalRepository journalRepository,
+            @Value("${shop.inventory.memory.stripes:8}") int stripes,
+            @Value("${shop.inventory.memory.flush-batch-size:5000}") int flushBatchSize,
+            @Value("${shop.inventory.memory.reload-timeout-ms:5000}") long reloadTimeoutMs
+    ) {
+        this.journalRepository = journalRepository;
+        this.stripes = stripes;
+        this.flushBatchSize = flushBatchSize;
+        this.reloadTimeoutMs = reloadTimeoutMs;
+        log.info("Инициализация in-memory складского учёта: stripes={}, flushBatchSize={}, reloadTimeoutMs={}",
+                stripes, flushBatchSize, reloadTimeoutMs);
+    }
+
+    @Override
+    @Transactional
+    public void reserve(Map<Long, Integer> quantities) {
+        List<String> shortages = tryReserve(quantities);
+        if (!shortages.isEmpty()) {
+            throw new BadRequestException(String.join("; ", shortages));
+        }
+    }
+
+    @Override
+    @Transactional
+    public List<String> tryReserve(Map<Long, Integer> quantities) {
+        loadMissing(quantities.keySet());
+
+        // захватываем в порядке id; резерв помнит счётчик, из которого взят, —
+        // возврат идёт туда же, даже если товар тем временем перезагружен
+        List<Reservation> reservations = new ArrayList<>();
+        List<String> shortages = new ArrayList<>();
+        Map<Long, StripedStockCounter> entered = enteredInTransaction();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(reloadTimeoutMs);
+        try {
+            for (Map.Entry<Long, Integer> entry : new TreeMap<>(quantities).entrySet()) {
+                StripedStockCounter counter = enterCounter(entry.getKey(), entered, deadline);
+                if (counter.tryAcquire(entry.getValue())) {
+                    reservations.add(new Reservation(entry.getKey(), counter, entry.getValue()));
+                } else {
+                    counter.leave();
+                    shortages.add("Not enough stock for product id=" + entry.getKey() +
+                            ". Requested=" + entry.getValue() + ", available=" + counter.available());
+                }
+            }
+        } catch (RuntimeException ex) {
+            completeAll(reservations, false);
+            throw ex;
+        }
+
+        if (!shortages.isEmpty()) {
+            completeAll(reservations, false);
+            log.warn("Недостаточно остатков при резервировании (in-memory): {}", shortages);
+            return shortages;
+        }
+
+        // резервы считаются незавершёнными до конца транзакции заказа: при откате возвращаются,
+        // при коммите уже лежат в журнале — в обоих случаях перезагрузка остатка их учтёт
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        log.debug("Транзакция заказа не зафиксирована, возврат резерва: {}", quantities);
+                    }
+                    completeAll(reservations, status == STATUS_COMMITTED);
+                }
+            });
+            journalRepository.append(quantities);
+            reservations.forEach(reservation -> entered.putIfAbsent(reservation.productId(), reservation.counter()));
+        } else {
+            try {
+                journalRepository.append(quantities);
+            } catch (RuntimeException ex) {
+                completeAll(reservations, false);
+                throw ex;
+            }
+            completeAll(reservations, true);
+        }
+
+        log.debug("Остатки зарезервированы в памяти: товаров={}", quantities.size());
+        return List.of();
+    }
+
+    /**
+     * Сброс выполняется после завершения текущей транзакции, когда изменённый products.stock уже виден.
+     * Счётчик товара закрывается для новых резервов и убирается из ledger, как только завершатся
+     * все транзакции с резервами из него: следующая загрузка видит в БД и новый остаток,
+     * и журнал этих резервов. Резервирующие товар транзакции на это время ждут (не дольше reload-timeout-ms).
+     */
+    @Override
+    public void invalidate(Long productId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateNow(productId);
+                }
+            });
+        } else {
+            invalidateNow(productId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shop.inventory.memory.flush-interval-ms:500}")
+    public void flush() {
+        int updated;
+        int total = 0;
+        do {
+            updated = journalRepository.flush(flushBatchSize);
+            total += updated;
+        } while (updated > 0);
+
+        if (total > 0) {
+            log.debug("Write-behind: применены дельты остатков, обновлений products={}", total);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Остановка in-memory складского учёта: финальный flush журнала");
+        flush();
+    }
+
+    private void loadMissing(Collection<Long> productIds) {
+        List<Long> missing = productIds.stream()
+                .filter(productId -> !ledger.containsKey(productId))
+                .toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        Object token = new Object();
+        missing.forEach(productId -> loading.put(productId, token));
+        Map<Long, Long> available;
+        try {
+            available = journalRepository.findAvailableStock(missing);
+        } catch (RuntimeException ex) {
+            missing.forEach(productId -> loading.remove(productId, token));
+            throw ex;
+        }
+
+        List<Long> stale = new ArrayList<>();
+        for (Long productId : missing) {
+            // метку снимает сброс товара: тогда прочитанный остаток мог устареть — загрузим при следующем обращении
+            ledger.compute(productId, (id, current) -> {
+                if (!loading.remove(id, token)) {
+                    stale.add(id);
+                    return current;
+                }
+                return current != null ? current : newCounter(id, available.getOrDefault(id, 0L));
+            });
+        }
+        log.debug("Загружены остатки в ledger: {}, устарели при загрузке: {}", available, stale);
+    }
+
+    private StripedStockCounter newCounter(Long productId, long available) {
+        return new StripedStockCounter(available, stripes, counter -> {
+            ledger.remove(productId, counter);
+            log.debug("Остаток товара id={} снят с учёта в ledger", productId);
+        });
+    }
+
+    private void invalidateNow(Long productId) {
+        log.debug("Сброс остатка товара id={} из in-memory ledger", productId);
+        // под блокировкой ключа ledger: загрузка либо уже положила счётчик (закроем его), либо потеряла метку
+        StripedStockCounter counter = ledger.compute(productId, (id, current) -> {
+            loading.remove(id);
+            return current;
+        });
+        if (counter != null) {
+            counter.close();
+        }
+    }
+
+    /**
+     * Счётчики, резервы из которых текущая транзакция держит до своего завершения (пачка PENDING-заказов
+     * резервирует несколько заказов в одной транзакции). Следующий заказ пачки резервирует по тому же
+     * счётчику, даже если товар тем временем сброшен: ждать снятия счётчика, который держит сама
+     * транзакция, бессмысленно — он снимется только после её завершения.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Long, StripedStockCounter> enteredInTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new HashMap<>();
+        }
+        Map<Long, StripedStockCounter> entered =
+                (Map<Long, StripedStockCounter>) TransactionSynchronizationManager.getResource(this);
+        if (entered == null) {
+            entered = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, entered);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(InMemoryInventoryService.this);
+                }
+            });
+        }
+        return entered;
+    }
+
+    private StripedStockCounter enterCounter(Long productId, Map<Long, StripedStockCounter> entered, long deadline) {
+        StripedStockCounter held = entered.get(productId);
+        if (held != null) {
+            held.reenter();
+            return held;
+        }
+        while (true) {
+            StripedStockCounter counter = ledger.get(productId);
+            if (counter == null) {
+                loadMissing(List.of(productId));
+            } else if (counter.enter()) {
+                return counter;
+            } else {
+                awaitRetired(productId, counter, deadline);
+            }
+        }
+    }
+
+    /**
+     * Ждём, пока завершатся транзакции с резервами из закрытого счётчика. Ожидание ограничено:
+     * транзакция, которая сама держит резервы другого перезагружаемого товара, не должна ждать вечно —
+     * откат освобождает её резервы, клиент повторяет запрос.
+     */
+    private void awaitRetired(Long productId, StripedStockCounter counter, long deadline) {
+        long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        try {
+            if (remainingMs > 0 && counter.awaitRetired(remainingMs)) {
+                return;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        log.warn("Остаток товара id={} не перезагрузился за {} мс", productId, reloadTimeoutMs);
+        throw new TooManyRequestsException("Stock of product id=" + productId + " is being reloaded, retry later");
+    }
+
+    private static void completeAll(List<Reservation> reservations, boolean committed) {
+        for (Reservation reservation : reservations) {
+            if (!committed) {
+                reservation.counter().release(reservation.quantity());
+            }
+            reservation.counter().leave();
+        }
+    }
+
+    private record Reservation(Long productId, StripedStockCounter counter, int quantity) {
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.shop.service.impl;
+
+import com.example.shop.dto.order.OrderExportDto;
+import com.example.shop.repository.OrderRepository;
+import com.example.shop.service.OrderExportService;
+import com.example.shop.util.CsvWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+@Slf4j
+@Timed(value = "shop.service", histogram = true)
+@Service
+public class OrderExportServiceImpl implements OrderExportService {
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter ndjsonWriter;
+    private final int fetchSize;
+    private final long progressEvery;
+
+    public OrderExportServiceImpl(OrderRepository orderRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  ObjectMapper objectMapper,
+                                  @Value("${shop.orders.export.fetch-size:1000}") int fetchSize,
+                                  @Value("${shop.orders.export.progress-every:1000000}") long progressEvery) {
+        this.orderRepository = orderRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // без flush после каждого заказа: в сокет уходят полные буферы, а не строки по сотне байт
+        this.ndjsonWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n");
+        this.fetchSize = fetchSize;
+        this.progressEvery = progressEvery;
+    }
+
+    @Override
+    public long exportOrders(Format format, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        log.info("Выгрузка заказов ({}): начата, fetchSize={}", format, fetchSize);
+
+        long exported = switch (format) {
+            case NDJSON -> exportNdjson(out);
+            case CSV -> exportCsv(out);
+        };
+
+        log.info("Выгрузка заказов ({}) завершена за {} мс: заказов={}",
+                format, (System.nanoTime() - started) / 1_000_000, exported);
+        return exported;
+    }
+
+    private long exportNdjson(OutputStream out) throws IOException {
+        long exported;
+        try (SequenceWriter sequence = ndjsonWriter.writeValues(out)) {
+            exported = forEachOrder(sequence::write);
+        }
+        // разделитель SequenceWriter ставится только между заказами
+        if (exported > 0) {
+            out.write('\n');
+        }
+        return exported;
+    }
+
+    private long exportCsv(OutputStream out) throws IOException {
+        CsvWriter csv = new CsvWriter(new BufferedWriter(
+                new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE));
+        csv.writeRecord("order_id", "user_id", "status", "status_reason", "total_price", "created_at", "updated_at",
+                "product_id", "quantity", "price");
+        long exported = forEachOrder(order -> {
+            if (order.getItems().isEmpty()) {
+                csv.writeRecord(order.getId(), order.getUserId(), order.getStatus(), order.getStatusReason(),
+                        order.getTotalPrice(), order.getCreatedAt(), order.getUpdatedAt(), null, null, null);
+            }
+            for (OrderExportDto.Item item : order.getItems()) {
+                csv.writeRecord(order.getId(), order.getUserId(), order.getStatus(), order.getStatusReason(),
+                        order.getTotalPrice(), order.getCreatedAt(), order.getUpdatedAt(),
+                        item.getProductId(), item.getQuantity(), item.getPrice());
+            }
+        });
+        csv.flush();
+        return exported;
+    }
+
+    /**
+     * Курсор по заказам в read-only транзакции: сущности не создаются, persistence context остаётся пустым,
+     * в памяти — не больше fetchSize строк. Ошибка записи (клиент оборвал соединение) прерывает чтение.
+     */
+    private long forEachOrder(OrderWriter writer) throws IOException {
+        long[] exported = {0};
+        try {
+            readOnlyTransaction.executeWithoutResult(status ->
+                    orderRepository.forEachForExport(fetchSize, order -> {
+                        try {
+                            writer.write(order);
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                        if (++exported[0] % progressEvery == 0) {
+                            log.info("Выгрузка заказов: выгружено={}", exported[0]);
+                        }
+                    }));
+        } catch (UncheckedIOException ex) {
+            log.warn("Выгрузка заказов прервана после {} заказов: {}", exported[0], ex.getCause().getMessage());
+            throw ex.getCause();
+        }
+        return exported[0];
+    }
+
+    @FunctionalInterface
+    private interface OrderWriter {
+
+        void write(OrderExportDto order) throws IOException;
+    }
+}
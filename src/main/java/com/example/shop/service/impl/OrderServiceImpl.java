@@ -1,23 +1,32 @@
 package com.example.shop.service.impl;
 
+import com.example.shop.dto.common.CursorPageDto;
 import com.example.shop.dto.order.CreateOrderRequestDto;
 import com.example.shop.dto.order.OrderDto;
+import com.example.shop.dto.order.OrderSummaryDto;
 import com.example.shop.entity.Order;
 import com.example.shop.entity.OrderItem;
 import com.example.shop.entity.Product;
 import com.example.shop.entity.User;
 import com.example.shop.entity.enums.OrderStatus;
-import com.example.shop.exception.BadRequestException;
 import com.example.shop.exception.NotFoundException;
 import com.example.shop.mapper.OrderMapper;
+import com.example.shop.messaging.OrderEventsOutbox;
 import com.example.shop.repository.OrderRepository;
 import com.example.shop.repository.ProductRepository;
 import com.example.shop.repository.UserRepository;
+import com.example.shop.security.UserDetailsImpl;
+import com.example.shop.service.InventoryService;
 import com.example.shop.service.OrderService;
+import com.example.shop.util.CursorUtil;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,9 +34,14 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
+@Timed(value = "shop.service", histogram = true)
 @Service
 @Transactional(readOnly = true)
 public class OrderServiceImpl implements OrderService {
@@ -35,16 +49,25 @@ public class OrderServiceImpl implements OrderService {
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
+    private final InventoryService inventoryService;
     private final OrderMapper orderMapper;
+    private final OrderEventsOutbox orderEventsOutbox;
+    private final MeterRegistry meterRegistry;
 
     public OrderServiceImpl(OrderRepository orderRepository,
                             UserRepository userRepository,
                             ProductRepository productRepository,
-                            OrderMapper orderMapper) {
+                            InventoryService inventoryService,
+                            OrderMapper orderMapper,
+                            OrderEventsOutbox orderEventsOutbox,
+                            MeterRegistry meterRegistry) {
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
         this.productRepository = productRepository;
+        this.inventoryService = inventoryService;
         this.orderMapper = orderMapper;
+        this.orderEventsOutbox = orderEventsOutbox;
+        this.meterRegistry = meterRegistry;
     }
 
 
@@ -53,54 +76,111 @@ public class OrderServiceImpl implements OrderService {
     public OrderDto create(CreateOrderRequestDto dto) {
         log.info("Создание заказа для текущего пользователя");
 
-        // 1. Достаём e-mail текущего пользователя из SecurityContext
-        String email = SecurityContextHolder.getContext()
-                .getAuthentication()
-                .getName();
-        log.debug("Текущий пользователь из SecurityContext: email={}", email);
+        Map<Long, Integer> quantities = quantitiesByProduct(dto);
+        Order order = newOrder(dto, quantities, OrderStatus.NEW);
 
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new NotFoundException("User not found"));
-        log.debug("Пользователь найден: id={}, email={}", user.getId(), user.getEmail());
+        // Сначала сохраняем заказ и событие в outbox, а остатки списываем последним запросом
+        // транзакции: блокировки строк products держатся только до ближайшего commit
+        Order saved = orderRepository.saveAndFlush(order);
+        orderEventsOutbox.orderCreated(saved);
+        inventoryService.reserve(quantities);
+
+        log.info("Заказ создан: id={}, userId={}, totalPrice={}",
+                saved.getId(), saved.getUser().getId(), saved.getTotalPrice());
+        recordOrderSize(saved, "sync");
+
+        return orderMapper.toDto(saved);
+    }
+
+    @Override
+    @Transactional
+    public OrderDto submit(CreateOrderRequestDto dto) {
+        log.info("Приём заказа на асинхронное оформление");
+
+        // Остатки здесь не трогаем: строки products не блокируются, транзакция — пара INSERT.
+        // Резервирование, событие в outbox и итоговый статус — в PendingOrderWorker
+        Order order = newOrder(dto, quantitiesByProduct(dto), OrderStatus.PENDING);
+        Order saved = orderRepository.save(order);
+
+        log.info("Заказ принят в обработку: id={}, userId={}, totalPrice={}",
+                saved.getId(), saved.getUser().getId(), saved.getTotalPrice());
+        recordOrderSize(saved, "async");
+
+        return orderMapper.toDto(saved);
+    }
+
+    /**
+     * Размер заказа: число позиций, штук и сумма (orders.items, orders.units, orders.amount{checkout}).
+     */
+    private void recordOrderSize(Order order, String checkout) {
+        DistributionSummary.builder("orders.items")
+                .description("Число позиций в заказе")
+                .baseUnit("items")
+                .tag("checkout", checkout)
+                .register(meterRegistry)
+                .record(order.getItems().size());
+        DistributionSummary.builder("orders.units")
+                .description("Число единиц товара в заказе")
+                .baseUnit("units")
+                .tag("checkout", checkout)
+                .register(meterRegistry)
+                .record(order.getItems().stream().mapToInt(OrderItem::getQuantity).sum());
+        DistributionSummary.builder("orders.amount")
+                .description("Сумма заказа")
+                .tag("checkout", checkout)
+                .register(meterRegistry)
+                .record(order.getTotalPrice().doubleValue());
+    }
+
+    /**
+     * Суммирует количество по товарам (одна позиция может встречаться в корзине несколько раз).
+     */
+    private static Map<Long, Integer> quantitiesByProduct(CreateOrderRequestDto dto) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        dto.getItems().forEach(itemDto ->
+                quantities.merge(itemDto.getProductId(), itemDto.getQuantity(), Integer::sum));
+        return quantities;
+    }
+
+    /**
+     * Собирает заказ текущего пользователя по корзине: проверяет, что все товары существуют,
+     * и фиксирует в позициях текущие цены. Остатки не проверяет.
+     */
+    private Order newOrder(CreateOrderRequestDto dto, Map<Long, Integer> quantities, OrderStatus status) {
+        // 1. Текущий пользователь из SecurityContext — ссылка по id, без SELECT в users
+        Long userId = currentUserId();
+        User user = userRepository.getReferenceById(userId);
+        log.debug("Текущий пользователь из SecurityContext: id={}", userId);
 
         // 2. Создаём Order
         Order order = new Order();
         order.setUser(user);
-        order.setStatus(OrderStatus.NEW);
+        order.setStatus(status);
         order.setCreatedAt(LocalDateTime.now());
         order.setUpdatedAt(LocalDateTime.now());
 
         BigDecimal totalPrice = BigDecimal.ZERO;
         List<OrderItem> items = new ArrayList<>();
 
-        dto.getItems().forEach(itemDto -> {
-            Long productId = itemDto.getProductId();
-            Integer quantity = itemDto.getQuantity();
-
-            log.debug("Обработка позиции заказа: productId={}, quantity={}", productId, quantity);
+        // 3. Одним IN-запросом загружаем все товары корзины
+        Map<Long, Product> products = productRepository.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        log.debug("Загружено товаров для заказа: {} из {}", products.size(), quantities.size());
 
-            Product product = productRepository.findById(productId)
-                    .orElseThrow(() -> new NotFoundException("Product not found"));
-
-            Integer currentStock = product.getStock();
-            if (currentStock == null) {
-                currentStock = 0;
-            }
-
-            if (currentStock < quantity) {
-                throw new BadRequestException(
-                        "Not enough stock for product id=" + productId +
-                                ". Requested=" + quantity + ", available=" + currentStock
-                );
-            }
-
-            product.setStock(currentStock - quantity);
+        List<Long> missing = quantities.keySet().stream()
+                .filter(productId -> !products.containsKey(productId))
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new NotFoundException("Product not found: ids=" + missing);
+        }
 
+        dto.getItems().forEach(itemDto -> {
+            Product product = products.get(itemDto.getProductId());
 
             OrderItem item = new OrderItem();
             item.setOrder(order);
             item.setProduct(product);
-            item.setQuantity(quantity);
+            item.setQuantity(itemDto.getQuantity());
             item.setPrice(product.getPrice());
 
             items.add(item);
@@ -114,12 +194,7 @@ public class OrderServiceImpl implements OrderService {
 
         order.setItems(items);
         order.setTotalPrice(totalPrice);
-
-        Order saved = orderRepository.save(order);
-        log.info("Заказ создан: id={}, userId={}, totalPrice={}",
-                saved.getId(), user.getId(), saved.getTotalPrice());
-
-        return orderMapper.toDto(saved);
+        return order;
     }
 
 
@@ -133,27 +208,20 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public Page<OrderDto> getMyOrders(Pageable pageable) {
-        String email = SecurityContextHolder.getContext()
-                .getAuthentication()
-                .getName();
-        log.debug("Получение заказов для текущего пользователя: email={}", email);
-
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new NotFoundException("User not found"));
-
+        Long userId = currentUserId();
         log.debug("Поиск заказов по userId={} с page={}, size={}",
-                user.getId(), pageable.getPageNumber(), pageable.getPageSize());
+                userId, pageable.getPageNumber(), pageable.getPageSize());
 
-        Page<Order> ordersPage = orderRepository.findAllByUserId(user.getId(), pageable);
+        Page<Long> idsPage = orderRepository.findPageIdsByUserId(userId, pageable);
+        return toDtoPage(idsPage, pageable);
+    }
 
-        // Маппим в DTO прямо тут, пока транзакция и сессия ещё живы
-        List<OrderDto> dtoList = ordersPage
-                .getContent()
-                .stream()
-                .map(orderMapper::toDto)
-                .toList();
+    @Override
+    public Page<OrderSummaryDto> getMyOrderSummaries(Pageable pageable) {
+        Long userId = currentUserId();
+        log.debug("Получение кратких сведений о заказах текущего пользователя: userId={}", userId);
 
-        return new PageImpl<>(dtoList, pageable, ordersPage.getTotalElements());
+        return orderRepository.findSummariesByUserId(userId, pageable);
     }
 
 
@@ -162,15 +230,30 @@ public class OrderServiceImpl implements OrderService {
         log.info("Получение всех заказов: page={}, size={}",
                 pageable.getPageNumber(), pageable.getPageSize());
 
-        Page<Order> ordersPage = orderRepository.findAll(pageable);
+        Page<Long> idsPage = orderRepository.findPageIds(pageable);
+        return toDtoPage(idsPage, pageable);
+    }
 
-        List<OrderDto> dtoList = ordersPage
-                .getContent()
-                .stream()
-                .map(orderMapper::toDto)
-                .toList();
+    @Override
+    public CursorPageDto<OrderDto> scrollMyOrders(String after, int size) {
+        Long userId = currentUserId();
+        CursorUtil.Cursor cursor = CursorUtil.decode(after);
+        log.debug("Keyset-выборка заказов пользователя userId={}: after=({}, {}), size={}",
+                userId, cursor.createdAt(), cursor.id(), size);
+
+        List<Long> ids = orderRepository.findIdsByUserIdAfter(
+                userId, cursor.createdAt(), cursor.id(), size + 1);
+        return toCursorPage(ids, size);
+    }
 
-        return new PageImpl<>(dtoList, pageable, ordersPage.getTotalElements());
+    @Override
+    public CursorPageDto<OrderDto> scrollAllOrders(String after, int size) {
+        CursorUtil.Cursor cursor = CursorUtil.decode(after);
+        log.info("Keyset-выборка всех заказов: after=({}, {}), size={}",
+                cursor.createdAt(), cursor.id(), size);
+
+        List<Long> ids = orderRepository.findIdsAfter(cursor.createdAt(), cursor.id(), size + 1);
+        return toCursorPage(ids, size);
     }
 
     @Override
@@ -187,4 +270,73 @@ public class OrderServiceImpl implements OrderService {
         log.info("Статус заказа обновлён: id={}, status={}", saved.getId(), saved.getStatus());
         return orderMapper.toDto(saved);
     }
+
+    /**
+     * id текущего пользователя: из principal, который JWT-фильтр собрал из токена.
+     * Для других видов аутентификации (например, тестовый principal по имени) — поиск по e-mail.
+     */
+    private Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof UserDetailsImpl principal && principal.getId() != null) {
+            return principal.getId();
+        }
+
+        String email = authentication.getName();
+        log.debug("Principal без id, поиск пользователя по email={}", email);
+        return userRepository.findByEmail(email)
+                .map(User::getId)
+                .orElseThrow(() -> new NotFoundException("User not found"));
+    }
+
+    /**
+     * Второй шаг постраничной выборки: загружает заказы страницы вместе с items
+     * одним запросом и сохраняет порядок id, посчитанный в SQL.
+     */
+    private Page<OrderDto> toDtoPage(Page<Long> idsPage, Pageable pageable) {
+        List<Long> ids = idsPage.getContent();
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, idsPage.getTotalElements());
+        }
+
+        Map<Long, Order> ordersById = orderRepository.findAllByIdIn(ids).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+
+        // Маппим в DTO прямо тут, пока транзакция и сессия ещё живы
+        List<OrderDto> dtoList = ids.stream()
+                .map(ordersById::get)
+                .map(orderMapper::toDto)
+                .toList();
+
+        return new PageImpl<>(dtoList, pageable, idsPage.getTotalElements());
+    }
+
+    /**
+     * Keyset-страница заказов: ids уже упорядочены SQL и содержат на одну запись больше size.
+     */
+    private CursorPageDto<OrderDto> toCursorPage(List<Long> ids, int size) {
+        boolean hasNext = ids.size() > size;
+        List<Long> pageIds = hasNext ? ids.subList(0, size) : ids;
+        if (pageIds.isEmpty()) {
+            return new CursorPageDto<>(List.of(), size, false, null);
+        }
+
+        Map<Long, Order> ordersById = orderRepository.findAllByIdIn(pageIds).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        List<Order> orders = pageIds.stream()
+                .map(ordersById::get)
+                .toList();
+
+        String nextCursor = null;
+        if (hasNext) {
+            Order last = orders.get(orders.size() - 1);
+            nextCursor = CursorUtil.encode(last.getCreatedAt(), last.getId());
+        }
+
+        return new CursorPageDto<>(
+                orders.stream().map(orderMapper::toDto).toList(),
+                size,
+                hasNext,
+                nextCursor
+        );
+    }
 }
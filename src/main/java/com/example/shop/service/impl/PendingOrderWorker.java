@@ -0,0 +1,185 @@
+package com.example.shop.service.impl;
+
+import com.example.shop.entity.Order;
+import com.example.shop.entity.OrderItem;
+import com.example.shop.entity.enums.OrderStatus;
+import com.example.shop.messaging.OrderEventsOutbox;
+import com.example.shop.repository.OrderRepository;
+import com.example.shop.service.InventoryService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Savepoint;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Фоновое резервирование заказов, принятых в асинхронном режиме (статус PENDING).
+ * <p>
+ * За проход: заблокировать до batch-size PENDING-заказов (SKIP LOCKED) и зарезервировать остатки
+ * по каждому за своей точкой сохранения. Успешный заказ переходит в NEW и пишет событие в outbox,
+ * заказ без остатков — в REJECTED с причиной; вся пачка фиксируется одним commit.
+ * Клиент узнаёт итог через GET /api/orders/{id} или по событию shop.order.created.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shop.checkout.async.worker.enabled", havingValue = "true", matchIfMissing = true)
+public class PendingOrderWorker {
+
+    private static final int MAX_REASON_LENGTH = 500;
+    private static final Duration MIN_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final OrderRepository orderRepository;
+    private final InventoryService inventoryService;
+    private final OrderEventsOutbox orderEventsOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    private Duration backoff = Duration.ZERO;
+    private long nextAttemptAt;
+
+    private final Counter accepted;
+    private final Counter rejected;
+    private final Timer wait;
+
+    public PendingOrderWorker(OrderRepository orderRepository,
+                              InventoryService inventoryService,
+                              OrderEventsOutbox orderEventsOutbox,
+                              PlatformTransactionManager transactionManager,
+                              JdbcTemplate jdbcTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${shop.checkout.async.batch-size:50}") int batchSize) {
+        this.orderRepository = orderRepository;
+        this.inventoryService = inventoryService;
+        this.orderEventsOutbox = orderEventsOutbox;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+
+        this.accepted = Counter.builder("checkout.async.orders").tag("result", "accepted").register(meterRegistry);
+        this.rejected = Counter.builder("checkout.async.orders").tag("result", "rejected").register(meterRegistry);
+        this.wait = Timer.builder("checkout.async.wait")
+                .description("Время от приёма заказа до итогового статуса")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+
+        log.info("Обработчик асинхронных заказов: batchSize={}", batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${shop.checkout.async.interval-ms:100}")
+    public void process() {
+        if (System.nanoTime() - nextAttemptAt < 0) {
+            return;
+        }
+        try {
+            BatchResult result;
+            do {
+                result = transactionTemplate.execute(status -> processBatch());
+                record(result);
+            } while (result != null && result.claimed() == batchSize);
+            backoff = Duration.ZERO;
+        } catch (RuntimeException ex) {
+            // пачка откатилась целиком — заказы остаются PENDING, повтор с нарастающей паузой
+            backoff = backoff.isZero() ? MIN_BACKOFF : min(backoff.multipliedBy(2), MAX_BACKOFF);
+            nextAttemptAt = System.nanoTime() + backoff.toNanos();
+            log.warn("Обработка PENDING-заказов прервана, повтор через {} с: {}", backoff.toSeconds(), ex.getMessage());
+        }
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private BatchResult processBatch() {
+        List<Long> ids = orderRepository.lockPendingIds(batchSize);
+        if (ids.isEmpty()) {
+            return new BatchResult(0, 0, List.of());
+        }
+
+        List<Order> orders = orderRepository.findAllByIdIn(ids).stream()
+                .sorted(Comparator.comparing(Order::getId))
+                .toList();
+        LocalDateTime now = LocalDateTime.now();
+        int acceptedCount = 0;
+        List<Duration> waits = new ArrayList<>(orders.size());
+
+        for (Order order : orders) {
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
+            for (OrderItem item : order.getItems()) {
+                quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+            }
+
+            List<String> shortages = reserveWithSavepoint(quantities);
+            if (shortages.isEmpty()) {
+                order.setStatus(OrderStatus.NEW);
+                order.setUpdatedAt(now);
+                orderEventsOutbox.orderCreated(order);
+                acceptedCount++;
+            } else {
+                String reason = String.join("; ", shortages);
+                order.setStatus(OrderStatus.REJECTED);
+                order.setStatusReason(truncate(reason));
+                order.setUpdatedAt(now);
+                log.info("Заказ отклонён: id={}, reason={}", order.getId(), reason);
+            }
+            waits.add(Duration.between(order.getCreatedAt(), now));
+        }
+
+        log.debug("PENDING-заказы обработаны: всего {}, принято {}", orders.size(), acceptedCount);
+        return new BatchResult(ids.size(), acceptedCount, waits);
+    }
+
+    // метрики — только после commit пачки
+    private void record(BatchResult result) {
+        if (result == null || result.claimed() == 0) {
+            return;
+        }
+        accepted.increment(result.accepted());
+        rejected.increment(result.waits().size() - result.accepted());
+        result.waits().forEach(wait::record);
+    }
+
+    /**
+     * Частичное списание по одному заказу откатывается до точки сохранения, не задевая пачку.
+     * Точка ставится прямо на JDBC-соединении транзакции: HibernateJpaDialect не поддерживает
+     * PROPAGATION_NESTED, а резервирование работает через JDBC и не трогает сессию Hibernate.
+     */
+    private List<String> reserveWithSavepoint(Map<Long, Integer> quantities) {
+        return jdbcTemplate.execute((ConnectionCallback<List<String>>) con -> {
+            Savepoint savepoint = con.setSavepoint();
+            List<String> shortages = inventoryService.tryReserve(quantities);
+            if (shortages.isEmpty()) {
+                con.releaseSavepoint(savepoint);
+            } else {
+                con.rollback(savepoint);
+            }
+            return shortages;
+        });
+    }
+
+    private static String truncate(String reason) {
+        return reason != null && reason.length() > MAX_REASON_LENGTH
+                ? reason.substring(0, MAX_REASON_LENGTH)
+                : reason;
+    }
+
+    private record BatchResult(int claimed, int accepted, List<Duration> waits) {
+    }
+}
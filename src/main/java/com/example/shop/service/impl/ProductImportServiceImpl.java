@@ -0,0 +1,471 @@
+package com.example.shop.service.impl;
+
+import com.example.shop.cache.CatalogFacetCache;
+import com.example.shop.cache.ProductPageCache;
+import com.example.shop.dto.product.ProductImportResultDto;
+import com.example.shop.entity.Category;
+import com.example.shop.exception.BadRequestException;
+import com.example.shop.repository.CategoryRepository;
+import com.example.shop.repository.ProductRepository;
+import com.example.shop.repository.ProductRepositoryCustom.ImportedProduct;
+import com.example.shop.service.InventoryService;
+import com.example.shop.service.ProductImportService;
+import com.example.shop.util.CsvReader;
+import com.example.shop.util.LineReader;
+import com.example.shop.util.RecordTooLongException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+@Slf4j
+@Timed(value = "shop.service", histogram = true)
+@Service
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final List<String> COLUMNS = List.of("id", "name", "description", "price", "stock", "category");
+    private static final List<String> REQUIRED_COLUMNS = List.of("name", "price", "stock", "category");
+
+    // размеры столбцов products (V1)
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final int MAX_DESCRIPTION_LENGTH = 2048;
+    private static final int MAX_PRICE_INTEGER_DIGITS = 13;
+    private static final int PRICE_SCALE = 2;
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final InventoryService inventoryService;
+    private final ProductPageCache productPageCache;
+    private final CatalogFacetCache catalogFacetCache;
+    private final CacheManager cacheManager;
+    private final ObjectReader jsonReader;
+    private final Counter insertedRows;
+    private final Counter updatedRows;
+    private final Counter failedRows;
+    private final int batchSize;
+    private final int maxErrors;
+    private final long progressEvery;
+    private final int maxRecordLength;
+
+    public ProductImportServiceImpl(ProductRepository productRepository,
+                                    CategoryRepository categoryRepository,
+                                    InventoryService inventoryService,
+                                    ProductPageCache productPageCache,
+                                    CatalogFacetCache catalogFacetCache,
+                                    CacheManager cacheManager,
+                                    ObjectMapper objectMapper,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${shop.products.import.batch-size:5000}") int batchSize,
+                                    @Value("${shop.products.import.max-errors:100}") int maxErrors,
+                                    @Value("${shop.products.import.progress-every:100000}") long progressEvery,
+                                    @Value("${shop.products.import.max-record-length:65536}") int maxRecordLength) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.inventoryService = inventoryService;
+        this.productPageCache = productPageCache;
+        this.catalogFacetCache = catalogFacetCache;
+        this.cacheManager = cacheManager;
+        // 19.99 из JSON-числа — без промежуточного double
+        this.jsonReader = objectMapper.reader().with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        this.insertedRows = importedRows(meterRegistry, "inserted");
+        this.updatedRows = importedRows(meterRegistry, "updated");
+        this.failedRows = importedRows(meterRegistry, "failed");
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+        this.progressEvery = progressEvery;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    @Override
+    public ProductImportResultDto importCsv(InputStream body) {
+        CsvReader csv = new CsvReader(reader(body), maxRecordLength);
+        Map<String, Integer> columns;
+        try {
+            columns = csvColumns(csv.next());
+        } catch (IOException ex) {
+            throw new BadRequestException("Cannot read CSV header: " + ex.getMessage());
+        }
+
+        return importRows("CSV", () -> {
+            List<String> fields;
+            do {
+                try {
+                    fields = csv.next();
+                } catch (RecordTooLongException ex) {
+                    return RawRow.invalid(ex.line(), ex.getMessage());
+                }
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.get(0).isBlank());
+
+            if (fields.size() != columns.size()) {
+                return RawRow.invalid(csv.recordLine(),
+                        "Expected " + columns.size() + " fields, got " + fields.size());
+            }
+            return new RawRow(csv.recordLine(),
+                    csvField(fields, columns, "id"),
+                    csvField(fields, columns, "name"),
+                    csvField(fields, columns, "description"),
+                    csvField(fields, columns, "price"),
+                    csvField(fields, columns, "stock"),
+                    csvField(fields, columns, "category"));
+        });
+    }
+
+    @Override
+    public ProductImportResultDto importNdjson(InputStream body) {
+        LineReader reader = new LineReader(reader(body), maxRecordLength);
+
+        return importRows("NDJSON", () -> {
+            String line;
+            do {
+                try {
+                    line = reader.readLine();
+                } catch (RecordTooLongException ex) {
+                    return RawRow.invalid(ex.line(), ex.getMessage());
+                }
+                if (line == null) {
+                    return null;
+                }
+                if (reader.line() == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+            } while (line.isBlank());
+
+            JsonNode node;
+            try {
+                node = jsonReader.readTree(line);
+            } catch (JsonProcessingException ex) {
+                return RawRow.invalid(reader.line(), "Invalid JSON: " + ex.getOriginalMessage());
+            }
+            if (!node.isObject()) {
+                return RawRow.invalid(reader.line(), "Expected a JSON object");
+            }
+            return new RawRow(reader.line(),
+                    jsonField(node, "id"),
+                    jsonField(node, "name"),
+                    jsonField(node, "description"),
+                    jsonField(node, "price"),
+                    jsonField(node, "stock"),
+                    jsonField(node, "category"));
+        });
+    }
+
+    private ProductImportResultDto importRows(String format, RowSource source) {
+        long started = System.nanoTime();
+        Map<String, Long> categoryIds = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            categoryIds.put(category.getName(), category.getId());
+        }
+        log.info("Импорт товаров ({}): начат, категорий={}, batchSize={}", format, categoryIds.size(), batchSize);
+
+        ProductImportResultDto result = new ProductImportResultDto();
+        Batch batch = new Batch(result);
+        try {
+            RawRow raw;
+            while ((raw = source.next()) != null) {
+                result.setProcessed(result.getProcessed() + 1);
+                ParsedRow row = parse(raw, categoryIds);
+                if (row.error() != null) {
+                    batch.fail(row.line(), row.error());
+                } else {
+                    batch.add(row);
+                }
+                if (batch.size() >= batchSize) {
+                    batch.flush();
+                }
+                if (result.getProcessed() % progressEvery == 0) {
+                    log.info("Импорт товаров ({}): обработано={}, вставлено={}, обновлено={}, ошибок={}",
+                            format, result.getProcessed(), result.getInserted(), result.getUpdated(),
+                            result.getFailed());
+                }
+            }
+        } catch (IOException ex) {
+            // уже загруженные пачки остаются в БД, в отчёт попадает причина обрыва (для CSV — с номером строки)
+            log.warn("Импорт товаров ({}): чтение прервано после {} строк: {}",
+                    format, result.getProcessed(), ex.getMessage());
+            // ошибки уже прочитанных строк — раньше причины обрыва
+            batch.flush();
+            batch.fail(0, "Import aborted: " + ex.getMessage());
+        } finally {
+            batch.flush();
+            evictCaches();
+        }
+
+        result.setDurationMs((System.nanoTime() - started) / 1_000_000);
+        log.info("Импорт товаров ({}) завершён за {} мс: обработано={}, вставлено={}, обновлено={}, ошибок={}",
+                format, result.getDurationMs(), result.getProcessed(), result.getInserted(), result.getUpdated(),
+                result.getFailed());
+        return result;
+    }
+
+    private static ParsedRow parse(RawRow raw, Map<String, Long> categoryIds) {
+        long line = raw.line();
+        if (raw.error() != null) {
+            return ParsedRow.error(line, raw.error());
+        }
+        Long id = null;
+        if (raw.id() != null) {
+            try {
+                id = Long.valueOf(raw.id());
+            } catch (NumberFormatException ex) {
+                return ParsedRow.error(line, "Invalid id: " + raw.id());
+            }
+        }
+
+        String name = raw.name();
+        if (name == null) {
+            return ParsedRow.error(line, "Name is required");
+        }
+        if (name.length() > MAX_NAME_LENGTH) {
+            return ParsedRow.error(line, "Name is longer than " + MAX_NAME_LENGTH + " characters");
+        }
+        if (raw.description() != null && raw.description().length() > MAX_DESCRIPTION_LENGTH) {
+            return ParsedRow.error(line, "Description is longer than " + MAX_DESCRIPTION_LENGTH + " characters");
+        }
+
+        BigDecimal price;
+        try {
+            price = new BigDecimal(raw.price() != null ? raw.price() : "");
+        } catch (NumberFormatException ex) {
+            return ParsedRow.error(line, "Invalid price: " + raw.price());
+        }
+        if (price.signum() < 0
+                || price.stripTrailingZeros().scale() > PRICE_SCALE
+                || price.precision() - price.scale() > MAX_PRICE_INTEGER_DIGITS) {
+            return ParsedRow.error(line, "Price must be non-negative with at most " + MAX_PRICE_INTEGER_DIGITS
+                    + " integer and " + PRICE_SCALE + " fraction digits: " + raw.price());
+        }
+
+        int stock;
+        try {
+            stock = Integer.parseInt(raw.stock() != null ? raw.stock() : "");
+        } catch (NumberFormatException ex) {
+            return ParsedRow.error(line, "Invalid stock: " + raw.stock());
+        }
+        if (stock < 0) {
+            return ParsedRow.error(line, "Stock must be non-negative");
+        }
+
+        Long categoryId = raw.category() != null ? categoryIds.get(raw.category()) : null;
+        if (categoryId == null) {
+            return ParsedRow.error(line, "Unknown category: " + raw.category());
+        }
+
+        return new ParsedRow(line, new ImportedProduct(id, name, raw.description(), price, stock, categoryId), null);
+    }
+
+    /**
+     * Кэши сбрасываются один раз на весь импорт, а не на каждый товар, как при POST/PUT.
+     */
+    private void evictCaches() {
+        Cache products = cacheManager.getCache("products");
+        if (products != null) {
+            products.clear();
+        }
+        productPageCache.clear();
+        catalogFacetCache.clear();
+    }
+
+    private static Map<String, Integer> csvColumns(List<String> header) {
+        if (header == null) {
+            throw new BadRequestException("CSV header is missing");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).strip().toLowerCase(Locale.ROOT);
+            if (!COLUMNS.contains(column)) {
+                throw new BadRequestException("Unknown CSV column: " + header.get(i) + ", expected " + COLUMNS);
+            }
+            if (columns.put(column, i) != null) {
+                throw new BadRequestException("Duplicate CSV column: " + column);
+            }
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new BadRequestException("CSV column is missing: " + column);
+            }
+        }
+        return columns;
+    }
+
+    private static String csvField(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        return index != null ? blankToNull(fields.get(index)) : null;
+    }
+
+    private static String jsonField(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : blankToNull(value.asText());
+    }
+
+    private static String blankToNull(String value) {
+        String stripped = value.strip();
+        return stripped.isEmpty() ? null : stripped;
+    }
+
+    private static BufferedReader reader(InputStream body) {
+        return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    private static Counter importedRows(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("shop.products.import.rows")
+                .description("Строки массового импорта товаров по результату")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Источник строк импорта; next() возвращает null, когда данные кончились.
+     */
+    @FunctionalInterface
+    private interface RowSource {
+
+        RawRow next() throws IOException;
+    }
+
+    /**
+     * Поля строки как есть (пустые — null), ещё не проверенные; error — строку не удалось даже разобрать.
+     */
+    private record RawRow(long line, String id, String name, String description, String price, String stock,
+                          String category, String error) {
+
+        RawRow(long line, String id, String name, String description, String price, String stock, String category) {
+            this(line, id, name, description, price, stock, category, null);
+        }
+
+        static RawRow invalid(long line, String error) {
+            return new RawRow(line, null, null, null, null, null, null, error);
+        }
+    }
+
+    private record ParsedRow(long line, ImportedProduct product, String error) {
+
+        static ParsedRow error(long line, String message) {
+            return new ParsedRow(line, null, message);
+        }
+    }
+
+    /**
+     * Текущая пачка: новые товары уходят одним INSERT, перезаписываемые — одним UPDATE.
+     * Отказ БД на пачке (например, категорию удалили во время импорта) записывается в ошибки всех её строк.
+     * Ошибки разбора и ошибки БД по строкам пачки попадают в отчёт при flush, вместе и по порядку строк.
+     */
+    private final class Batch {
+
+        private final ProductImportResultDto result;
+        private final List<ImportedProduct> inserts = new ArrayList<>();
+        private final List<Long> insertLines = new ArrayList<>();
+        private final List<ImportedProduct> updates = new ArrayList<>();
+        private final List<Long> updateLines = new ArrayList<>();
+        private final Set<Long> updateIds = new HashSet<>();
+        private final List<ProductImportResultDto.RowError> errors = new ArrayList<>();
+
+        Batch(ProductImportResultDto result) {
+            this.result = result;
+        }
+
+        // строки с ошибками тоже считаются: их ошибки ждут flush
+        int size() {
+            return inserts.size() + updates.size() + errors.size();
+        }
+
+        void add(ParsedRow row) {
+            ImportedProduct product = row.product();
+            if (product.id() == null) {
+                inserts.add(product);
+                insertLines.add(row.line());
+                return;
+            }
+            // UPDATE ... FROM с повтором id применил бы только одну из строк — повтор уходит в следующую пачку
+            if (!updateIds.add(product.id())) {
+                flush();
+                updateIds.add(product.id());
+            }
+            updates.add(product);
+            updateLines.add(row.line());
+        }
+
+        void fail(long line, String message) {
+            result.setFailed(result.getFailed() + 1);
+            failedRows.increment();
+            errors.add(new ProductImportResultDto.RowError(line, message));
+        }
+
+        void flush() {
+            if (!inserts.isEmpty()) {
+                try {
+                    productRepository.insertImported(inserts);
+                    result.setInserted(result.getInserted() + inserts.size());
+                    insertedRows.increment(inserts.size());
+                } catch (DataAccessException ex) {
+                    failAll(insertLines, ex);
+                }
+            }
+            if (!updates.isEmpty()) {
+                try {
+                    Set<Long> updated = productRepository.updateImported(updates);
+                    for (int i = 0; i < updates.size(); i++) {
+                        Long id = updates.get(i).id();
+                        if (updated.contains(id)) {
+                            // остаток перезаписан — in-memory учёт должен перечитать его из БД
+                            inventoryService.invalidate(id);
+                        } else {
+                            fail(updateLines.get(i), "Product not found: id=" + id);
+                        }
+                    }
+                    result.setUpdated(result.getUpdated() + updated.size());
+                    updatedRows.increment(updated.size());
+                } catch (DataAccessException ex) {
+                    failAll(updateLines, ex);
+                }
+            }
+            inserts.clear();
+            insertLines.clear();
+            updates.clear();
+            updateLines.clear();
+            updateIds.clear();
+
+            errors.sort(Comparator.comparingLong(ProductImportResultDto.RowError::getLine));
+            for (ProductImportResultDto.RowError error : errors) {
+                if (result.getErrors().size() >= maxErrors) {
+                    break;
+                }
+                result.getErrors().add(error);
+            }
+            errors.clear();
+        }
+
+        private void failAll(List<Long> lines, DataAccessException ex) {
+            String message = ex.getMostSpecificCause().getMessage();
+            log.warn("Импорт товаров: пачка из {} строк отклонена БД: {}", lines.size(), message);
+            lines.forEach(line -> fail(line, message));
+        }
+    }
+}
@@ -1,37 +1,76 @@
 package com.example.shop.service.impl;
 
+import com.example.shop.cache.CatalogFacetCache;
+import com.example.shop.cache.ProductPageCache;
+import com.example.shop.dto.common.CursorPageDto;
 import com.example.shop.dto.product.CreateProductRequestDto;
+import com.example.shop.dto.product.ProductCatalogDto;
 import com.example.shop.dto.product.ProductDto;
 import com.example.shop.entity.Category;
 import com.example.shop.entity.Product;
+import com.example.shop.exception.BadRequestException;
 import com.example.shop.exception.NotFoundException;
 import com.example.shop.mapper.ProductMapper;
 import com.example.shop.repository.ProductRepository;
+import com.example.shop.repository.ProductRepositoryCustom;
+import com.example.shop.repository.ProductRepositoryCustom.CatalogFacets;
+import com.example.shop.repository.ProductRepositoryCustom.CatalogFilter;
+import com.example.shop.repository.ProductRepositoryCustom.CatalogSort;
 import com.example.shop.service.CategoryService;
+import com.example.shop.service.InventoryService;
 import com.example.shop.service.ProductService;
+import com.example.shop.util.CursorUtil;
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
+@Timed(value = "shop.service", histogram = true)
 @Service
 public class ProductServiceImpl implements ProductService {
 
     private final ProductRepository productRepository;
     private final CategoryService categoryService;
     private final ProductMapper productMapper;
+    private final InventoryService inventoryService;
+    private final ProductPageCache productPageCache;
+    private final CatalogFacetCache catalogFacetCache;
+    private final int searchMaxCandidates;
+    private final BigDecimal[] catalogPriceBounds;
 
     public ProductServiceImpl(ProductRepository productRepository,
                               CategoryService categoryService,
-                              ProductMapper productMapper) {
+                              ProductMapper productMapper,
+                              InventoryService inventoryService,
+                              ProductPageCache productPageCache,
+                              CatalogFacetCache catalogFacetCache,
+                              @Value("${shop.search.max-candidates:1000}") int searchMaxCandidates,
+                              @Value("${shop.catalog.price-bounds:0,1000,5000,10000,50000}") BigDecimal[] catalogPriceBounds) {
         this.productRepository = productRepository;
         this.categoryService = categoryService;
         this.productMapper = productMapper;
+        this.inventoryService = inventoryService;
+        this.productPageCache = productPageCache;
+        this.catalogFacetCache = catalogFacetCache;
+        this.searchMaxCandidates = searchMaxCandidates;
+        this.catalogPriceBounds = catalogPriceBounds;
     }
 
 
@@ -39,13 +78,90 @@ public class ProductServiceImpl implements ProductService {
     public Page<ProductDto> getProducts(Pageable pageable) {
         log.debug("Получение списка активных товаров: page={}, size={}",
                 pageable.getPageNumber(), pageable.getPageSize());
-        return productRepository.findAllByActiveTrue(pageable)
-                .map(productMapper::toDto);
+        // без явной сортировки порядок строк в Postgres меняется после UPDATE, и закэшированные
+        // соседние страницы начали бы пересекаться — поэтому по умолчанию сортируем по id
+        Pageable ordered = pageable.getSort().isSorted()
+                ? pageable
+                : PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("id"));
+        return productPageCache.get(ordered, () -> productRepository.findAllByActiveTrue(ordered)
+                .map(productMapper::toDto));
     }
 
 
     @Override
-    @Cacheable(cacheNames = "products", key = "#id")
+    public CursorPageDto<ProductDto> scrollProducts(String after, int size) {
+        CursorUtil.Cursor cursor = CursorUtil.decode(after);
+        log.debug("Keyset-выборка активных товаров: after=({}, {}), size={}",
+                cursor.createdAt(), cursor.id(), size);
+
+        // берём на одну запись больше, чтобы узнать о следующей странице без count(*)
+        List<Product> products = productRepository.findActiveAfter(cursor.createdAt(), cursor.id(), size + 1);
+        boolean hasNext = products.size() > size;
+        List<Product> content = hasNext ? products.subList(0, size) : products;
+
+        String nextCursor = null;
+        if (hasNext) {
+            Product last = content.get(content.size() - 1);
+            nextCursor = CursorUtil.encode(last.getCreatedAt(), last.getId());
+        }
+
+        return new CursorPageDto<>(
+                content.stream().map(productMapper::toDto).toList(),
+                size,
+                hasNext,
+                nextCursor
+        );
+    }
+
+
+    @Override
+    public Page<ProductDto> search(String query, Pageable pageable) {
+        log.debug("Поиск товаров: query='{}', page={}, size={}",
+                query, pageable.getPageNumber(), pageable.getPageSize());
+
+        ProductRepositoryCustom.SearchHits hits = productRepository.searchActive(
+                query, pageable.getOffset(), pageable.getPageSize(), searchMaxCandidates);
+        if (!hits.searchable()) {
+            throw new BadRequestException("Search query must contain at least one word that is not excluded");
+        }
+        return new PageImpl<>(findAllInOrder(hits.ids()), pageable, hits.total());
+    }
+
+
+    @Override
+    public ProductCatalogDto getCatalog(CatalogFilter filter, CatalogSort sort, Pageable pageable) {
+        log.debug("Каталог: filter={}, sort={}, page={}, size={}",
+                filter, sort, pageable.getPageNumber(), pageable.getPageSize());
+
+        // total берём из итоговой группы запроса фасетов — отдельный count(*) для страницы не нужен
+        CatalogFacets facets = catalogFacetCache.get(filter,
+                () -> productRepository.countCatalogFacets(filter, catalogPriceBounds));
+        List<ProductDto> content = pageable.getOffset() < facets.total()
+                ? findAllInOrder(productRepository.findCatalogPage(
+                        filter, sort, pageable.getOffset(), pageable.getPageSize()))
+                : List.of();
+
+        ProductCatalogDto catalog = new ProductCatalogDto();
+        catalog.setContent(content);
+        catalog.setPage(pageable.getPageNumber());
+        catalog.setSize(pageable.getPageSize());
+        catalog.setTotalElements(facets.total());
+        catalog.setTotalPages((int) ((facets.total() + pageable.getPageSize() - 1) / pageable.getPageSize()));
+        catalog.setCategories(facets.categories().entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .map(entry -> new ProductCatalogDto.CategoryFacet(entry.getKey(), entry.getValue()))
+                .toList());
+        catalog.setPrices(facets.priceBuckets().entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> priceFacet(entry.getKey(), entry.getValue()))
+                .toList());
+        return catalog;
+    }
+
+
+    @Override
+    @Cacheable(cacheNames = "products", key = "#id", sync = true)
     public ProductDto getById(Long id) {
         log.debug("Получение товара по id={} (кэшируемый метод)", id);
         Product product = productRepository.findById(id)
@@ -55,7 +171,7 @@ public class ProductServiceImpl implements ProductService {
 
 
     @Override
-    @CacheEvict(cacheNames = "products", allEntries = true)
+    @CachePut(cacheNames = "products", key = "#result.id")
     public ProductDto create(CreateProductRequestDto dto) {
         log.info("Создание товара: name={}, categoryId={}", dto.getName(), dto.getCategoryId());
         Category category = categoryService.getById(dto.getCategoryId());
@@ -66,13 +182,15 @@ public class ProductServiceImpl implements ProductService {
         product.setCreatedAt(LocalDateTime.now());
 
         Product saved = productRepository.save(product);
+        productPageCache.clear();
+        catalogFacetCache.clear();
         log.info("Товар создан: id={}, name={}", saved.getId(), saved.getName());
         return productMapper.toDto(saved);
     }
 
 
     @Override
-    @CacheEvict(cacheNames = "products", allEntries = true)
+    @CachePut(cacheNames = "products", key = "#id")
     public ProductDto update(Long id, CreateProductRequestDto dto) {
         log.info("Обновление товара id={} новым name={}, categoryId={}",
                 id, dto.getName(), dto.getCategoryId());
@@ -86,13 +204,16 @@ public class ProductServiceImpl implements ProductService {
         product.setCategory(category);
 
         Product saved = productRepository.save(product);
+        inventoryService.invalidate(saved.getId());
+        productPageCache.evictProduct(saved.getId());
+        catalogFacetCache.clear();
         log.info("Товар обновлён: id={}, name={}", saved.getId(), saved.getName());
         return productMapper.toDto(saved);
     }
 
 
     @Override
-    @CacheEvict(cacheNames = "products", allEntries = true)
+    @CacheEvict(cacheNames = "products", key = "#id")
     public void delete(Long id) {
         log.warn("Запрос на удаление (soft delete) товара id={}", id);
         Product product = productRepository.findById(id)
@@ -100,6 +221,33 @@ public class ProductServiceImpl implements ProductService {
 
         product.setActive(false);
         productRepository.save(product);
+        inventoryService.invalidate(id);
+        productPageCache.clear();
+        catalogFacetCache.clear();
         log.info("Товар помечен как неактивный (soft delete): id={}", id);
     }
+
+    /**
+     * findAllById не сохраняет порядок — раскладываем товары в порядке ids.
+     */
+    private List<ProductDto> findAllInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> byId = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(productMapper::toDto)
+                .toList();
+    }
+
+    /**
+     * bucket — номер диапазона width_bucket: 1..n, диапазон [bounds[bucket-1], bounds[bucket]), последний открыт сверху.
+     */
+    private ProductCatalogDto.PriceFacet priceFacet(int bucket, long count) {
+        BigDecimal to = bucket < catalogPriceBounds.length ? catalogPriceBounds[bucket] : null;
+        return new ProductCatalogDto.PriceFacet(catalogPriceBounds[bucket - 1], to, count);
+    }
 }
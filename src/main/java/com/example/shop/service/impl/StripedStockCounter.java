@@ -0,0 +1,184 @@
+package com.example.shop.service.impl;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Остаток одного товара, разбитый на несколько независимых CAS-слотов.
+ * Параллельные покупатели в основном работают каждый со своим слотом и не конкурируют
+ * за одну ячейку памяти; если ни в одном слоте целиком не хватает, количество собирается
+ * из всех слотов под блокировкой счётчика.
+ * <p>
+ * Остаток никогда не уходит в минус: каждый слот уменьшается только через compareAndSet
+ * при достаточном значении.
+ * <p>
+ * Кроме остатка счётчик считает незавершённые транзакции, которые по нему резервируют
+ * ({@link #enter()}/{@link #leave()}). Закрытый ({@link #close()}) счётчик новых резервов не принимает,
+ * но возвраты по откату принимает; когда завершится последняя транзакция, он снимается с учёта
+ * (onRetired) — к этому моменту все его резервы уже в журнале или возвращены, и перезагрузка из БД
+ * их учтёт. Никто не ждёт этого момента в цикле: его отмечает тот, кто последним вышел.
+ */
+final class StripedStockCounter {
+
+    /**
+     * 8 long = 64 байта: соседние слоты лежат в разных cache line (нет false sharing).
+     */
+    private static final int PADDING = 8;
+
+    private final int stripes;
+    private final AtomicLongArray slots;
+
+    private final LongAdder inFlight = new LongAdder();
+    private final CountDownLatch retired = new CountDownLatch(1);
+    private final AtomicBoolean retiring = new AtomicBoolean();
+    private final Consumer<StripedStockCounter> onRetired;
+    private volatile boolean closed;
+
+    StripedStockCounter(long initial, int stripes, Consumer<StripedStockCounter> onRetired) {
+        this.stripes = stripes;
+        this.onRetired = onRetired;
+        this.slots = new AtomicLongArray(stripes * PADDING);
+        spread(Math.max(initial, 0));
+    }
+
+    /**
+     * Пытается списать quantity единиц.
+     *
+     * @return true, если списано целиком; false — если в сумме по слотам не хватило (ничего не списано)
+     */
+    boolean tryAcquire(long quantity) {
+        // быстрый путь: вся позиция из одного слота, без блокировок
+        int home = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            if (tryTake((home + i) % stripes, quantity)) {
+                return true;
+            }
+        }
+        return acquireConsolidated(quantity);
+    }
+
+    void release(long quantity) {
+        int stripe = ThreadLocalRandom.current().nextInt(stripes);
+        slots.addAndGet(stripe * PADDING, quantity);
+    }
+
+    long available() {
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += slots.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    /**
+     * Регистрирует резервирующую транзакцию.
+     *
+     * @return false, если счётчик закрыт на перезагрузку — резервировать надо по новому
+     */
+    boolean enter() {
+        inFlight.increment();
+        if (closed) {
+            leave();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Повторный вход транзакции, которая уже держит счётчик через {@link #enter()} и ещё не вышла.
+     * Принимается и закрытым счётчиком: снят с учёта он всё равно не будет, пока эта транзакция не завершится.
+     */
+    void reenter() {
+        inFlight.increment();
+    }
+
+    /**
+     * Транзакция, вошедшая через {@link #enter()}, завершилась (резерв в журнале или возвращён).
+     */
+    void leave() {
+        inFlight.decrement();
+        if (closed) {
+            retireIfDrained();
+        }
+    }
+
+    /**
+     * Закрывает счётчик для новых резервов; снимается он с учёта сразу или с последним {@link #leave()}.
+     */
+    void close() {
+        closed = true;
+        retireIfDrained();
+    }
+
+    /**
+     * @return true, если счётчик снят с учёта; false — истёк timeout
+     */
+    boolean awaitRetired(long timeoutMs) throws InterruptedException {
+        return retired.await(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    // closed пишется до чтения inFlight, а inFlight — до чтения closed: хотя бы одна сторона увидит ноль
+    private void retireIfDrained() {
+        if (inFlight.sum() == 0 && retiring.compareAndSet(false, true)) {
+            onRetired.accept(this);
+            retired.countDown();
+        }
+    }
+
+    /**
+     * Медленный путь: под блокировкой забираем весь остаток из слотов и раскладываем обратно.
+     * Параллельный быстрый путь списывает из одного слота одним CAS, поэтому собранная сумма —
+     * это действительно весь остаток, и отказ здесь означает настоящую нехватку,
+     * а не "разъехавшиеся" под конкуренцией слоты.
+     */
+    private synchronized boolean acquireConsolidated(long quantity) {
+        long total = 0;
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            total += takeUpTo(stripe, Long.MAX_VALUE);
+        }
+        boolean acquired = total >= quantity;
+        spread(acquired ? total - quantity : total);
+        return acquired;
+    }
+
+    private void spread(long quantity) {
+        long base = quantity / stripes;
+        long remainder = quantity % stripes;
+        for (int i = 0; i < stripes; i++) {
+            long share = base + (i < remainder ? 1 : 0);
+            if (share > 0) {
+                slots.addAndGet(i * PADDING, share);
+            }
+        }
+    }
+
+    private boolean tryTake(int stripe, long quantity) {
+        int index = stripe * PADDING;
+        long current = slots.get(index);
+        while (current >= quantity) {
+            if (slots.compareAndSet(index, current, current - quantity)) {
+                return true;
+            }
+            current = slots.get(index);
+        }
+        return false;
+    }
+
+    private long takeUpTo(int stripe, long quantity) {
+        int index = stripe * PADDING;
+        long current = slots.get(index);
+        while (current > 0) {
+            long take = Math.min(current, quantity);
+            if (slots.compareAndSet(index, current, current - take)) {
+                return take;
+            }
+            current = slots.get(index);
+        }
+        return 0;
+    }
+}
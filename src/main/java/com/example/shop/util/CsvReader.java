@@ -0,0 +1,130 @@
+package com.example.shop.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковое чтение CSV (RFC 4180): разделитель — запятая, поля в кавычках могут содержать
+ * запятые, переводы строк и удвоенные кавычки. Читает запись за записью, весь файл в памяти не держит.
+ * <p>
+ * Длина записи ограничена: незакрытая кавычка иначе склеила бы весь остаток файла в одну запись.
+ */
+public final class CsvReader {
+
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+    private static final char BOM = '\uFEFF';
+
+    private final Reader reader;
+    private final int maxRecordLength;
+    private int pushedBack = -1;
+    private long line = 1;
+    private long recordLine;
+    private boolean started;
+
+    /**
+     * @param reader желательно буферизованный — символы читаются по одному
+     */
+    public CsvReader(Reader reader, int maxRecordLength) {
+        this.reader = reader;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /**
+     * @return поля следующей записи или null, если данные кончились
+     * @throws RecordTooLongException запись длиннее maxRecordLength символов; остаток строки, на которой
+     *                                превышен предел, пропущен — следующий вызов читает со следующей строки
+     */
+    public List<String> next() throws IOException {
+        int ch = read();
+        if (!started) {
+            started = true;
+            // Excel и PowerShell пишут UTF-8 с BOM
+            if (ch == BOM) {
+                ch = read();
+            }
+        }
+        if (ch == -1) {
+            return null;
+        }
+
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int length = 0;
+        while (true) {
+            if (++length > maxRecordLength) {
+                skipLine(ch);
+                throw new RecordTooLongException(recordLine, maxRecordLength);
+            }
+            if (quoted) {
+                if (ch == -1) {
+                    throw new IOException("Unterminated quoted field in record at line " + recordLine);
+                }
+                if (ch == QUOTE) {
+                    int following = read();
+                    if (following == QUOTE) {
+                        field.append(QUOTE);
+                    } else {
+                        quoted = false;
+                        ch = following;
+                        continue;
+                    }
+                } else {
+                    if (ch == '\n') {
+                        line++;
+                    }
+                    field.append((char) ch);
+                }
+            } else if (ch == QUOTE && field.isEmpty()) {
+                quoted = true;
+            } else if (ch == SEPARATOR) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (ch == '\r' || ch == '\n' || ch == -1) {
+                if (ch == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        pushedBack = following;
+                    }
+                }
+                if (ch != -1) {
+                    line++;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) ch);
+            }
+            ch = read();
+        }
+    }
+
+    /**
+     * Номер строки файла (с 1), на которой началась последняя прочитанная запись.
+     */
+    public long recordLine() {
+        return recordLine;
+    }
+
+    private void skipLine(int ch) throws IOException {
+        while (ch != -1 && ch != '\n') {
+            ch = read();
+        }
+        if (ch == '\n') {
+            line++;
+        }
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -1) {
+            int ch = pushedBack;
+            pushedBack = -1;
+            return ch;
+        }
+        return reader.read();
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.shop.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Запись CSV (RFC 4180) в поток — пара к {@link CsvReader}: разделитель — запятая, строки через CRLF,
+ * поля с запятой, кавычкой или переводом строки берутся в кавычки. null пишется пустым полем.
+ */
+public final class CsvWriter {
+
+    private final Writer writer;
+
+    /**
+     * @param writer желательно буферизованный — поля пишутся по одному
+     */
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    public void writeRecord(Object... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (fields[i] != null) {
+                writeField(fields[i].toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    private void writeField(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char ch = value.charAt(i);
+            quote = ch == ',' || ch == '"' || ch == '\r' || ch == '\n';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.shop.util;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * OutputStream поверх {@link ResponseBodyEmitter}: каждый write уходит в ответ отдельным куском.
+ * close() ответ не завершает — это делает вызывающий через complete()/completeWithError().
+ */
+public final class EmitterOutputStream extends OutputStream {
+
+    private final ResponseBodyEmitter emitter;
+    private final MediaType mediaType;
+
+    /**
+     * Оборачивать в BufferedOutputStream — иначе кусков будет по байту.
+     */
+    public EmitterOutputStream(ResponseBodyEmitter emitter, MediaType mediaType) {
+        this.emitter = emitter;
+        this.mediaType = mediaType;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return;
+        }
+        // до инициализации ответа emitter копит куски у себя, а вызывающий переиспользует буфер
+        emitter.send(Arrays.copyOfRange(b, off, off + len), mediaType);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.shop.util;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Построчное чтение с ограничением длины строки: в отличие от {@link java.io.BufferedReader#readLine()}
+ * строка без перевода строки не накапливается в памяти целиком.
+ */
+public final class LineReader {
+
+    private final Reader reader;
+    private final int maxLength;
+    private final StringBuilder buffer = new StringBuilder();
+    private long line;
+
+    /**
+     * @param reader желательно буферизованный — символы читаются по одному
+     */
+    public LineReader(Reader reader, int maxLength) {
+        this.reader = reader;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * @return следующая строка без \n (и \r перед ним) или null, если данные кончились
+     * @throws RecordTooLongException строка длиннее maxLength; она пропущена, следующий вызов читает дальше
+     */
+    public String readLine() throws IOException {
+        buffer.setLength(0);
+        int ch = reader.read();
+        if (ch == -1) {
+            return null;
+        }
+        line++;
+        while (ch != -1 && ch != '\n') {
+            if (buffer.length() == maxLength) {
+                skipLine();
+                throw new RecordTooLongException(line, maxLength);
+            }
+            buffer.append((char) ch);
+            ch = reader.read();
+        }
+        int length = buffer.length();
+        if (length > 0 && buffer.charAt(length - 1) == '\r') {
+            buffer.setLength(length - 1);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Номер строки файла (с 1), прочитанной последней.
+     */
+    public long line() {
+        return line;
+    }
+
+    private void skipLine() throws IOException {
+        int ch;
+        do {
+            ch = reader.read();
+        } while (ch != -1 && ch != '\n');
+    }
+}
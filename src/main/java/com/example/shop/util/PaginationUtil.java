@@ -10,7 +10,10 @@ public final class PaginationUtil {
 
     public static Pageable defaultPageable(Integer page, Integer size) {
         int p = (page == null || page < 0) ? 0 : page;
-        int s = (size == null || size <= 0 || size > 100) ? 20 : size;
-        return PageRequest.of(p, s);
+        return PageRequest.of(p, defaultSize(size));
+    }
+
+    public static int defaultSize(Integer size) {
+        return (size == null || size <= 0 || size > 100) ? 20 : size;
     }
 }
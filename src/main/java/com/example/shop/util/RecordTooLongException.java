@@ -0,0 +1,24 @@
+package com.example.shop.util;
+
+import java.io.IOException;
+
+/**
+ * Запись длиннее допустимого. Остаток физической строки, на которой превышен предел, уже пропущен —
+ * чтение можно продолжить со следующей записи.
+ */
+public class RecordTooLongException extends IOException {
+
+    private final long line;
+
+    public RecordTooLongException(long line, int maxLength) {
+        super("Record at line " + line + " is longer than " + maxLength + " characters");
+        this.line = line;
+    }
+
+    /**
+     * Номер строки файла (с 1), на которой началась запись.
+     */
+    public long line() {
+        return line;
+    }
+}
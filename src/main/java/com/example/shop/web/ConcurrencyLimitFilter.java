@@ -0,0 +1,166 @@
+package com.example.shop.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ограничивает число одновременно обрабатываемых запросов /api/** размером пула соединений с БД.
+ * <p>
+ * С виртуальными потоками параллелизм больше не ограничен пулом потоков Tomcat: каждый запрос получает
+ * свой поток, и при пике тысячи из них встают в очередь Hikari на getConnection до connection-timeout.
+ * Здесь лишние запросы ждут на справедливом семафоре не дольше max-wait, а затем получают
+ * 503 с Retry-After, так что пул соединений работает без длинной очереди.
+ * <p>
+ * Фильтр стоит перед цепочкой Spring Security: обращения к БД при аутентификации (загрузка пользователя
+ * в {@link com.example.shop.security.PrincipalCache}) тоже идут только по разрешению.
+ * <p>
+ * Асинхронный запрос (вход и регистрация, выгрузка заказов) держит разрешение до завершения
+ * асинхронной обработки, а не только до выхода из потока Tomcat: работа с БД у него идёт в другом потоке.
+ */
+@Slf4j
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 10)
+@ConditionalOnProperty(name = "shop.web.concurrency-limit.enabled", havingValue = "true")
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+    private final ObjectMapper objectMapper;
+    private final Counter rejected;
+
+    public ConcurrencyLimitFilter(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${shop.web.concurrency-limit.permits:${spring.datasource.hikari.maximum-pool-size:10}}") int permits,
+            @Value("${shop.web.concurrency-limit.max-wait:500ms}") Duration maxWait
+    ) {
+        this.permits = new Semaphore(permits, true);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.objectMapper = objectMapper;
+
+        Gauge.builder("http.server.concurrency.active", this.permits, s -> permits - s.availablePermits())
+                .description("Запросы /api/**, обрабатываемые в данный момент")
+                .register(meterRegistry);
+        Gauge.builder("http.server.concurrency.waiting", this.permits, Semaphore::getQueueLength)
+                .description("Запросы /api/**, ожидающие разрешения")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("http.server.concurrency.rejected")
+                .description("Запросы, отклонённые с 503 из-за ограничения параллелизма")
+                .register(meterRegistry);
+
+        log.info("Ограничение параллелизма /api/**: permits={}, maxWait={}", permits, maxWait);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!acquire()) {
+            rejected.increment();
+            log.debug("Нет свободных разрешений за {} мс, 503: {} {}",
+                    TimeUnit.NANOSECONDS.toMillis(maxWaitNanos), request.getMethod(), request.getRequestURI());
+            writeUnavailable(response);
+            return;
+        }
+
+        Permit permit = new Permit();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(permit);
+            } else {
+                permit.release();
+            }
+        }
+    }
+
+    private boolean acquire() {
+        try {
+            return permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Разрешение одного запроса: для асинхронного отпускается по onComplete (он приходит и после timeout/error).
+     */
+    private final class Permit implements AsyncListener {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // повторный startAsync снимает слушателей — продолжаем ждать завершения нового цикла
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    // фильтр работает до DispatcherServlet, поэтому ответ в формате ApiExceptionHandler пишем сами
+    private void writeUnavailable(HttpServletResponse response) throws IOException {
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", "Server is busy, retry later");
+
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
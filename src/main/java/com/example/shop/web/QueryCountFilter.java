@@ -0,0 +1,117 @@
+package com.example.shop.web;
+
+import com.example.shop.metrics.QueryCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL на HTTP-запрос /api/**: число запросов, строк и время в JDBC
+ * (http.server.requests.queries, .rows, .jdbc с тегами method и uri).
+ * <p>
+ * Запрос, превысивший бюджет shop.metrics.sql.query-budget, попадает в
+ * http.server.requests.query.budget.exceeded, в лог (WARN) и получает тег sql.budget=exceeded
+ * в http.server.requests — так N+1 видно на дашборде раньше, чем по задержкам.
+ * <p>
+ * Стоит после {@link ConcurrencyLimitFilter} и перед Spring Security: запросы при аутентификации учитываются,
+ * отклонённые ограничителем — нет.
+ */
+@Slf4j
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 5)
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    public static final String BUDGET_ATTRIBUTE = QueryCountFilter.class.getName() + ".budget";
+    public static final String BUDGET_WITHIN = "within";
+    public static final String BUDGET_EXCEEDED = "exceeded";
+    public static final String BUDGET_UNKNOWN = "none";
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+    private final int queryBudget;
+
+    public QueryCountFilter(MeterRegistry meterRegistry,
+                            @Value("${shop.metrics.sql.query-budget:20}") int queryBudget) {
+        this.meterRegistry = meterRegistry;
+        this.queryBudget = queryBudget;
+        log.info("Бюджет SQL-запросов на HTTP-запрос: {}", queryBudget);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        try (QueryCounter.Scope scope = QueryCounter.start()) {
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                // и для запроса, упавшего исключением: его SQL тоже нагрузка
+                record(request, scope);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryCounter.Scope scope) {
+        // шаблон пути (/api/orders/{id}), а не сам путь — иначе число серий растёт с числом id
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String method = request.getMethod();
+        String uri = pattern != null ? pattern.toString() : UNKNOWN_URI;
+
+        DistributionSummary.builder("http.server.requests.queries")
+                .description("Число SQL-запросов на HTTP-запрос")
+                .baseUnit("queries")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(scope.queries());
+        DistributionSummary.builder("http.server.requests.rows")
+                .description("Строк, изменённых (и прочитанных при count-rows) SQL-запросами HTTP-запроса")
+                .baseUnit("rows")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(scope.rows());
+        Timer.builder("http.server.requests.jdbc")
+                .description("Суммарное время выполнения SQL-запросов HTTP-запроса")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(scope.jdbcNanos(), TimeUnit.NANOSECONDS);
+
+        if (scope.queries() > queryBudget) {
+            request.setAttribute(BUDGET_ATTRIBUTE, BUDGET_EXCEEDED);
+            Counter.builder("http.server.requests.query.budget.exceeded")
+                    .description("HTTP-запросы, выполнившие больше SQL-запросов, чем shop.metrics.sql.query-budget")
+                    .tag("method", method)
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+            log.warn("Превышен бюджет SQL-запросов: {} {} — {} запросов (бюджет {}), {} строк, {} мс в JDBC",
+                    method, uri, scope.queries(), queryBudget, scope.rows(),
+                    TimeUnit.NANOSECONDS.toMillis(scope.jdbcNanos()));
+        } else {
+            request.setAttribute(BUDGET_ATTRIBUTE, BUDGET_WITHIN);
+        }
+    }
+}
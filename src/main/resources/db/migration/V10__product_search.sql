@@ -0,0 +1,16 @@
+-- V10__product_search.sql
+-- Полнотекстовый поиск по товарам: tsvector из названия (вес A) и описания (вес B).
+-- Столбец вычисляемый — Postgres пересчитывает его при каждом INSERT/UPDATE, приложению поддерживать индекс не нужно.
+-- Конфигурация russian: кириллица — русский стеммер, латиница — английский.
+
+ALTER TABLE products
+    ADD COLUMN IF NOT EXISTS search_vector tsvector
+        GENERATED ALWAYS AS (
+            setweight(to_tsvector('russian', coalesce(name, '')), 'A') ||
+            setweight(to_tsvector('russian', coalesce(description, '')), 'B')
+        ) STORED;
+
+-- в поиске участвуют только активные товары
+CREATE INDEX IF NOT EXISTS idx_products_search_vector
+    ON products USING GIN (search_vector)
+    WHERE active;
@@ -0,0 +1,20 @@
+-- V11__catalog_filter_indexes.sql
+-- Индексы под фильтры каталога (категория, диапазон цены) и сортировки GET /api/products/catalog.
+-- stock в индексы намеренно не входит: остаток меняется при каждом заказе, и любой индекс по нему
+-- лишил бы эти UPDATE'ы HOT-обновлений (пришлось бы переписывать все индексы таблицы).
+
+-- категория + цена: фильтр по категории, диапазон цены внутри неё, сортировка по цене;
+-- он же — index-only scan для счётчиков фасетов
+CREATE INDEX IF NOT EXISTS idx_products_active_category_price
+    ON products (category_id, price, id)
+    WHERE active;
+
+-- диапазон цены и сортировка по цене по всему каталогу
+CREATE INDEX IF NOT EXISTS idx_products_active_price
+    ON products (price, id)
+    WHERE active;
+
+-- новинки внутри категории
+CREATE INDEX IF NOT EXISTS idx_products_active_category_created_at_id
+    ON products (category_id, created_at DESC, id DESC)
+    WHERE active;
@@ -0,0 +1,12 @@
+-- V12__pooled_id_sequences.sql
+-- Идентификаторы сущностей JPA — из последовательностей блоками по 50 (оптимизатор pooled-lo):
+-- Hibernate получает id без INSERT ... RETURNING и может отправлять вставки JDBC-батчами.
+-- Значение последовательности — нижняя граница блока, поэтому вставки со значением по умолчанию
+-- (nextval из BIGSERIAL) получают id из следующих блоков и с Hibernate не пересекаются.
+-- increment_by должен совпадать с allocationSize в @SequenceGenerator (ddl-auto: validate это проверяет).
+
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
+ALTER SEQUENCE categories_id_seq INCREMENT BY 50;
+ALTER SEQUENCE products_id_seq INCREMENT BY 50;
+ALTER SEQUENCE orders_id_seq INCREMENT BY 50;
+ALTER SEQUENCE order_items_id_seq INCREMENT BY 50;
@@ -0,0 +1,14 @@
+-- V4__inventory_journal.sql
+-- Журнал списаний для режима shop.inventory.mode=memory:
+-- строки пишутся в одной транзакции с заказом и применяются к products.stock фоновым flush.
+-- Неприменённые строки переживают падение приложения и применяются при следующем flush.
+
+CREATE TABLE IF NOT EXISTS inventory_journal (
+    id          BIGSERIAL PRIMARY KEY,
+    product_id  BIGINT    NOT NULL REFERENCES products (id),
+    quantity    INT       NOT NULL,
+    created_at  TIMESTAMP NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_inventory_journal_product_id
+    ON inventory_journal (product_id);
@@ -0,0 +1,8 @@
+-- V5__order_indexes.sql
+-- Индексы под постраничные списки заказов и подгрузку позиций по списку order_id
+
+CREATE INDEX IF NOT EXISTS idx_orders_user_id_created_at_id
+    ON orders (user_id, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_order_items_order_id
+    ON order_items (order_id);
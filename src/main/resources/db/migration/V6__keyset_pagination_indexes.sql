@@ -0,0 +1,9 @@
+-- V6__keyset_pagination_indexes.sql
+-- Индексы под keyset-пагинацию (created_at DESC, id DESC): каждая страница — index range scan без OFFSET
+
+CREATE INDEX IF NOT EXISTS idx_products_active_created_at_id
+    ON products (created_at DESC, id DESC)
+    WHERE active;
+
+CREATE INDEX IF NOT EXISTS idx_orders_created_at_id
+    ON orders (created_at DESC, id DESC);
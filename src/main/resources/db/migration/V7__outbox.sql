@@ -0,0 +1,13 @@
+-- V7__outbox.sql
+-- Transactional outbox: события пишутся в одной транзакции с заказом,
+-- фоновый relay публикует их в RabbitMQ (с publisher confirms) и удаляет подтверждённые.
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id           BIGSERIAL    PRIMARY KEY,
+    exchange     VARCHAR(255) NOT NULL,
+    routing_key  VARCHAR(255) NOT NULL,
+    event_type   VARCHAR(100) NOT NULL,
+    aggregate_id BIGINT       NOT NULL,
+    payload      TEXT         NOT NULL,
+    created_at   TIMESTAMP    NOT NULL DEFAULT now()
+);
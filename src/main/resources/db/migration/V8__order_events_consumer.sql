@@ -0,0 +1,18 @@
+-- V8__order_events_consumer.sql
+-- Потребитель shop.order.created: ключи идемпотентности и агрегированные продажи по товарам.
+
+CREATE TABLE IF NOT EXISTS processed_messages (
+    message_id   VARCHAR(100) PRIMARY KEY,
+    processed_at TIMESTAMP    NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_processed_messages_processed_at
+    ON processed_messages (processed_at);
+
+CREATE TABLE IF NOT EXISTS product_sales (
+    product_id  BIGINT         PRIMARY KEY REFERENCES products (id),
+    quantity    BIGINT         NOT NULL DEFAULT 0,
+    revenue     NUMERIC(19, 2) NOT NULL DEFAULT 0,
+    order_count BIGINT         NOT NULL DEFAULT 0,
+    updated_at  TIMESTAMP      NOT NULL DEFAULT now()
+);
@@ -0,0 +1,10 @@
+-- V9__async_checkout.sql
+-- Асинхронное оформление заказов: причина отказа и очередь PENDING-заказов
+
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS status_reason VARCHAR(500);
+
+-- обработчик выбирает PENDING-заказы по id; частичный индекс остаётся маленьким,
+-- т.к. заказ находится в PENDING только до ближайшего прохода обработчика
+CREATE INDEX IF NOT EXISTS idx_orders_pending_id
+    ON orders (id)
+    WHERE status = 'PENDING';
@@ -0,0 +1,64 @@
+package com.example.shop.cache;
+
+import com.example.shop.repository.ProductRepositoryCustom.CatalogFacets;
+import com.example.shop.repository.ProductRepositoryCustom.CatalogFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class CatalogFacetCacheTest {
+
+    private static final BigDecimal[] PRICE_BOUNDS = {
+            BigDecimal.ZERO, new BigDecimal("1000"), new BigDecimal("5000")
+    };
+
+    @SuppressWarnings("unchecked")
+    private final CatalogFacetCache cache = new CatalogFacetCache(mock(ObjectProvider.class),
+            new SimpleMeterRegistry(), PRICE_BOUNDS, true, 100, Duration.ofMinutes(1));
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    @DisplayName("Фасеты, посчитанные до clear, в кэш не попадают")
+    void clearDuringLoadShouldDropStaleFacets() {
+        CatalogFilter filter = new CatalogFilter(null, null, null, false);
+
+        CatalogFacets stale = cache.get(filter, () -> {
+            cache.clear();
+            return facets(1);
+        });
+        assertThat(stale.total()).isEqualTo(1);
+
+        assertThat(cache.get(filter, () -> facets(2)).total()).isEqualTo(2);
+        assertThat(cache.get(filter, () -> facets(3)).total()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Цена на границе фасета кэшируется независимо от масштаба, произвольная цена — нет")
+    void onlyPriceBoundsShouldBeCached() {
+        cache.get(new CatalogFilter(null, new BigDecimal("1000"), null, false), this::load);
+        cache.get(new CatalogFilter(null, new BigDecimal("1000.00"), null, false), this::load);
+        assertThat(loads.get()).isEqualTo(1);
+
+        cache.get(new CatalogFilter(null, new BigDecimal("1234.56"), null, false), this::load);
+        cache.get(new CatalogFilter(null, new BigDecimal("1234.56"), null, false), this::load);
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    private CatalogFacets load() {
+        return facets(loads.incrementAndGet());
+    }
+
+    private static CatalogFacets facets(long total) {
+        return new CatalogFacets(total, Map.of(), Map.of());
+    }
+}
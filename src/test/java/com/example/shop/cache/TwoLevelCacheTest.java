@@ -0,0 +1,106 @@
+package com.example.shop.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class TwoLevelCacheTest {
+
+    private static final String KEY = "42";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Cache remote = new ConcurrentMapCache("products");
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Параллельные промахи по одному ключу ждут одну загрузку")
+    void concurrentMissesShouldCollapseIntoSingleLoad() throws Exception {
+        TwoLevelCache cache = newCache(false);
+        int callers = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> cache.get(KEY, () -> {
+                loads.incrementAndGet();
+                release.await();
+                return "loaded";
+            })));
+        }
+        awaitCollapsed(callers - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("loaded");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(remote.get(KEY, String.class)).isEqualTo("loaded");
+    }
+
+    @Test
+    @DisplayName("evict во время раннего обновления: устаревшее значение не записывается, новый промах грузит заново")
+    void evictDuringRefreshShouldDropStaleValue() throws Exception {
+        TwoLevelCache cache = newCache(true);
+        assertThat(cache.get(KEY, () -> "v1")).isEqualTo("v1");
+
+        CountDownLatch refreshStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // L1-попадание запускает фоновое обновление, которое читает значение до evict
+        assertThat(cache.get(KEY, () -> {
+            refreshStarted.countDown();
+            release.await();
+            return "stale";
+        })).isEqualTo("v1");
+        assertThat(refreshStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        cache.evict(KEY);
+        // промах после evict не присоединяется к зависшему обновлению
+        assertThat(executor.submit(() -> cache.get(KEY, () -> "v2")).get(5, TimeUnit.SECONDS)).isEqualTo("v2");
+
+        release.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(remote.get(KEY, String.class)).isEqualTo("v2");
+        assertThat(cache.get(KEY, String.class)).isEqualTo("v2");
+    }
+
+    private TwoLevelCache newCache(boolean earlyRefresh) {
+        // ttl = 0: при включённом раннем обновлении каждое L1-попадание запускает обновление
+        TwoLevelCacheManager.LocalTierSettings settings = new TwoLevelCacheManager.LocalTierSettings(
+                1000, earlyRefresh ? Duration.ZERO : Duration.ofMinutes(5), earlyRefresh, 1.0);
+        return new TwoLevelCache("products", Caffeine.newBuilder().build(), remote,
+                mock(CacheInvalidationPublisher.class), settings, executor, meterRegistry);
+    }
+
+    private void awaitCollapsed(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.counter("cache.singleflight.collapsed", "cache", "products").count() < expected
+                && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -28,4 +28,26 @@ public class ProductControllerTest extends BaseIntegrationTest {
                 .andExpect(jsonPath("$.totalElements").exists())
                 .andExpect(jsonPath("$.totalPages").exists());
     }
+
+    @Test
+    @DisplayName("GET /api/products/scroll возвращает keyset-страницу без totalElements")
+    void scrollProductsShouldReturnCursorPage() throws Exception {
+        mockMvc.perform(get("/api/products/scroll")
+                        .param("size", "5")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isArray())
+                .andExpect(jsonPath("$.size").value(5))
+                .andExpect(jsonPath("$.hasNext").isBoolean())
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("GET /api/products/scroll с битым курсором возвращает 400")
+    void scrollProductsWithInvalidCursorShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/products/scroll")
+                        .param("after", "not-a-cursor")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
 }
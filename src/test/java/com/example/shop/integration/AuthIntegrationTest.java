@@ -1,21 +1,40 @@
 package com.example.shop.integration;
 
+import com.example.shop.entity.User;
+import com.example.shop.entity.enums.Role;
+import com.example.shop.repository.UserRepository;
+import com.example.shop.security.PasswordHashingExecutor;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-
+// один поток и место в очереди — переполнение легко воспроизвести; стоимость BCrypt фиксирована
+@TestPropertySource(properties = {
+        "shop.security.password.threads=1",
+        "shop.security.password.queue-capacity=1",
+        "shop.security.password.bcrypt-strength=5"
+})
 public class AuthIntegrationTest extends BaseIntegrationTest {
 
     @Autowired
@@ -24,6 +43,12 @@ public class AuthIntegrationTest extends BaseIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    private UserRepository userRepository;
+
     @Test
     @DisplayName("Успешная регистрация нового пользователя возвращает JWT-токен")
     void registerShouldReturnJwtToken() throws Exception {
@@ -37,11 +62,16 @@ public class AuthIntegrationTest extends BaseIntegrationTest {
                 }
                 """.formatted(email);
 
-        var mvcResult = mockMvc.perform(
+        // BCrypt выполняется вне потока запроса — ответ асинхронный
+        var asyncResult = mockMvc.perform(
                         post("/api/auth/register")
                                 .contentType(MediaType.APPLICATION_JSON)
                                 .content(requestJson)
                 )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        var mvcResult = mockMvc.perform(asyncDispatch(asyncResult))
                 .andExpect(status().isOk())
                 .andReturn();
 
@@ -55,4 +85,63 @@ public class AuthIntegrationTest extends BaseIntegrationTest {
         assertTrue(token.chars().filter(ch -> ch == '.').count() == 2,
                 "JWT должен содержать три части, разделённые точками");
     }
+
+    @Test
+    @DisplayName("Очередь хеширования паролей заполнена: вход сразу отклоняется 429 с Retry-After")
+    void loginShouldBeRejectedWhenHashQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        // первая задача занимает единственный поток, вторая — единственное место в очереди
+        CompletableFuture<?> running = passwordHashingExecutor.submit(() -> await(release));
+        CompletableFuture<?> queued = passwordHashingExecutor.submit(() -> await(release));
+        try {
+            mockMvc.perform(post("/api/auth/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(loginJson("queue+" + UUID.randomUUID() + "@example.com", "StrongPass123!")))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+        } finally {
+            release.countDown();
+        }
+        running.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Вход с хешем меньшей стоимости BCrypt перехеширует пароль с текущей")
+    void loginShouldRehashWeakerPassword() throws Exception {
+        String email = "rehash+" + UUID.randomUUID() + "@example.com";
+        String password = "StrongPass123!";
+        User user = userRepository.save(new User(
+                email, new BCryptPasswordEncoder(4).encode(password), "Old Hash", Role.ROLE_USER));
+
+        var asyncResult = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(loginJson(email, password)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk());
+
+        String rehashed = userRepository.findById(user.getId()).orElseThrow().getPassword();
+        assertThat(rehashed).startsWith("$2a$05$");
+        assertThat(new BCryptPasswordEncoder().matches(password, rehashed)).isTrue();
+    }
+
+    private static String loginJson(String email, String password) {
+        return """
+                {
+                  "email": "%s",
+                  "password": "%s"
+                }
+                """.formatted(email, password);
+    }
+
+    private static Void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
 }
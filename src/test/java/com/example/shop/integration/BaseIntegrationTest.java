@@ -1,5 +1,8 @@
 package com.example.shop.integration;
 
+import com.example.shop.metrics.QueryCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -10,9 +13,15 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import static org.junit.jupiter.api.Assertions.fail;
+
 
 @SpringBootTest(properties = {
         "spring.cache.type=none",
+        "shop.cache.product-pages.enabled=false",
+        "shop.outbox.relay.enabled=false",
+        "shop.order-events.consumer.enabled=false",
+        "shop.checkout.async.worker.enabled=false",
         "spring.autoconfigure.exclude=" +
                 "org.springframework.boot.autoconfigure.amqp.RabbitAutoConfiguration," +
                 "org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration," +
@@ -38,6 +47,37 @@ public abstract class BaseIntegrationTest {
                 () -> "org.postgresql.Driver");
     }
 
+    private QueryCounter.Scope queryCount;
+
+    @BeforeEach
+    void startQueryCount() {
+        queryCount = QueryCounter.startCapturing();
+    }
+
+    @AfterEach
+    void stopQueryCount() {
+        queryCount.close();
+    }
+
+    /**
+     * Начать подсчёт SQL-запросов заново — вызывать после подготовки данных, перед проверяемым действием.
+     */
+    protected void resetQueryCount() {
+        queryCount.reset();
+    }
+
+    /**
+     * SQL-запросы потока теста с последнего {@link #resetQueryCount()}: и прямые вызовы сервисов,
+     * и запросы MockMvc (он выполняет фильтры и контроллер в том же потоке).
+     */
+    protected void assertMaxQueries(int max) {
+        long actual = queryCount.queries();
+        if (actual > max) {
+            fail("Ожидалось не больше %d SQL-запросов, выполнено %d:%n%s"
+                    .formatted(max, actual, String.join(System.lineSeparator(), queryCount.statements())));
+        }
+    }
+
     @Test
     void contextLoads() {
     }
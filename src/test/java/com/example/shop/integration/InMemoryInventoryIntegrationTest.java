@@ -0,0 +1,247 @@
+package com.example.shop.integration;
+
+import com.example.shop.dto.order.CreateOrderRequestDto;
+import com.example.shop.entity.Category;
+import com.example.shop.entity.Product;
+import com.example.shop.entity.User;
+import com.example.shop.entity.enums.Role;
+import com.example.shop.exception.BadRequestException;
+import com.example.shop.exception.TooManyRequestsException;
+import com.example.shop.repository.CategoryRepository;
+import com.example.shop.repository.ProductRepository;
+import com.example.shop.repository.UserRepository;
+import com.example.shop.security.UserDetailsImpl;
+import com.example.shop.service.OrderService;
+import com.example.shop.service.impl.InMemoryInventoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Slf4j
+@TestPropertySource(properties = {
+        "shop.inventory.mode=memory",
+        "shop.inventory.memory.reload-timeout-ms=1000"
+})
+public class InMemoryInventoryIntegrationTest extends BaseIntegrationTest {
+
+    private static final int INITIAL_STOCK = 500;
+    private static final int ORDERS = 2_000;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private InMemoryInventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("In-memory: параллельные заказы со сбросами остатка не приводят к overselling")
+    void parallelOrdersWithInvalidationsShouldNeverOversell() throws Exception {
+        Product product = newProduct(INITIAL_STOCK);
+
+        String email = "buyer+" + UUID.randomUUID() + "@example.com";
+        User buyer = userRepository.save(new User(email, "not-used", "Buyer", Role.ROLE_USER));
+        UserDetailsImpl principal = new UserDetailsImpl(buyer.getId(), email, null, Role.ROLE_USER);
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        // сбросы ledger посреди распродажи: незавершённые резервы не должны потеряться при перезагрузке
+        Future<?> invalidator = executor.submit(() -> {
+            start.await();
+            while (running.get()) {
+                inventoryService.invalidate(product.getId());
+                Thread.sleep(5);
+            }
+            return null;
+        });
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            futures.add(executor.submit(() -> {
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(
+                                principal, null, principal.getAuthorities()));
+                try {
+                    start.await();
+                    orderService.create(singleItemOrder(product.getId()));
+                    succeeded.incrementAndGet();
+                } catch (BadRequestException ex) {
+                    rejected.incrementAndGet();
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        running.set(false);
+        invalidator.get();
+        executor.shutdown();
+        log.info("In-memory concurrency test: {} orders, {} threads, succeeded={}, rejected={}",
+                ORDERS, THREADS, succeeded.get(), rejected.get());
+
+        inventoryService.flush();
+        Product reloaded = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals(INITIAL_STOCK, succeeded.get(), "Должно пройти ровно столько заказов, сколько было на складе");
+        assertEquals(ORDERS - INITIAL_STOCK, rejected.get());
+        assertEquals(0, reloaded.getStock(), "Остаток не должен уйти в минус");
+    }
+
+    @Test
+    @DisplayName("In-memory: резерв откаченной транзакции возвращается в остаток")
+    void rolledBackReservationShouldReturnStock() {
+        Product product = newProduct(10);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            inventoryService.reserve(Map.of(product.getId(), 4));
+            status.setRollbackOnly();
+        });
+
+        assertThat(tryReserve(product.getId(), 11)).isNotEmpty();
+        assertThat(tryReserve(product.getId(), 10)).isEmpty();
+
+        inventoryService.flush();
+        assertEquals(0, productRepository.findById(product.getId()).orElseThrow().getStock(),
+                "Откаченный резерв не должен попасть в журнал");
+    }
+
+    @Test
+    @DisplayName("In-memory: перезагрузка до и после flush видит тот же остаток")
+    void reloadShouldSeeSameStockBeforeAndAfterFlush() {
+        Product product = newProduct(10);
+        assertThat(tryReserve(product.getId(), 3)).isEmpty();
+
+        // до flush списание есть только в журнале
+        inventoryService.invalidate(product.getId());
+        assertThat(tryReserve(product.getId(), 8)).singleElement().asString().contains("available=7");
+
+        inventoryService.flush();
+        assertEquals(7, productRepository.findById(product.getId()).orElseThrow().getStock());
+
+        inventoryService.invalidate(product.getId());
+        assertThat(tryReserve(product.getId(), 8)).singleElement().asString().contains("available=7");
+        assertThat(tryReserve(product.getId(), 7)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("In-memory: резерв ждёт перезагрузки ограниченно, сброс не задевает другие товары")
+    void reservationShouldWaitForReloadWithinTimeout() throws Exception {
+        Product product = newProduct(10);
+        Product other = newProduct(10);
+        assertThat(tryReserve(other.getId(), 1)).isEmpty();
+
+        CountDownLatch reserved = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        // транзакция держит резерв, пока товар сбрасывается
+        Future<?> holder = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> {
+                    inventoryService.reserve(Map.of(product.getId(), 4));
+                    reserved.countDown();
+                    try {
+                        finish.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        try {
+            assertThat(reserved.await(5, TimeUnit.SECONDS)).isTrue();
+            inventoryService.invalidate(product.getId());
+
+            assertThat(tryReserve(other.getId(), 9)).isEmpty();
+            assertThrows(TooManyRequestsException.class, () -> tryReserve(product.getId(), 1));
+        } finally {
+            finish.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+            executor.shutdown();
+        }
+
+        assertThat(tryReserve(product.getId(), 7)).singleElement().asString().contains("available=6");
+    }
+
+    @Test
+    @DisplayName("In-memory: транзакция пачки резервирует по сброшенному товару, который уже держит, без ожидания")
+    void transactionShouldReuseCounterItAlreadyHolds() throws Exception {
+        Product product = newProduct(10);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // как PendingOrderWorker: несколько заказов в одной транзакции, товар сбрасывают между ними
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                assertThat(inventoryService.tryReserve(Map.of(product.getId(), 2))).isEmpty();
+                try {
+                    executor.submit(() -> inventoryService.invalidate(product.getId())).get(5, TimeUnit.SECONDS);
+                } catch (Exception ex) {
+                    throw new IllegalStateException(ex);
+                }
+                assertThat(inventoryService.tryReserve(Map.of(product.getId(), 3))).isEmpty();
+            });
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(tryReserve(product.getId(), 6)).singleElement().asString().contains("available=5");
+    }
+
+    private List<String> tryReserve(Long productId, int quantity) {
+        return new TransactionTemplate(transactionManager).execute(status ->
+                inventoryService.tryReserve(Map.of(productId, quantity)));
+    }
+
+    private Product newProduct(int stock) {
+        Category category = categoryRepository.save(
+                new Category("Memory ledger " + UUID.randomUUID(), "In-memory inventory test"));
+        return productRepository.save(new Product("Hot product", null, BigDecimal.TEN, stock, category));
+    }
+
+    private static CreateOrderRequestDto singleItemOrder(Long productId) {
+        CreateOrderRequestDto.Item item = new CreateOrderRequestDto.Item();
+        item.setProductId(productId);
+        item.setQuantity(1);
+
+        CreateOrderRequestDto dto = new CreateOrderRequestDto();
+        dto.setItems(List.of(item));
+        return dto;
+    }
+}
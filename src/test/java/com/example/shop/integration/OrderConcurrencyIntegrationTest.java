@@ -0,0 +1,116 @@
+package com.example.shop.integration;
+
+import com.example.shop.dto.order.CreateOrderRequestDto;
+import com.example.shop.entity.Category;
+import com.example.shop.entity.Product;
+import com.example.shop.entity.User;
+import com.example.shop.entity.enums.Role;
+import com.example.shop.exception.BadRequestException;
+import com.example.shop.repository.CategoryRepository;
+import com.example.shop.repository.ProductRepository;
+import com.example.shop.repository.UserRepository;
+import com.example.shop.security.UserDetailsImpl;
+import com.example.shop.service.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Slf4j
+public class OrderConcurrencyIntegrationTest extends BaseIntegrationTest {
+
+    private static final int INITIAL_STOCK = 500;
+    private static final int ORDERS = 2_000;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    @DisplayName("Параллельные заказы одного товара не приводят к overselling")
+    void parallelOrdersForHotProductShouldNeverOversell() throws Exception {
+        Category category = categoryRepository.save(
+                new Category("Flash sale " + UUID.randomUUID(), "Concurrency test"));
+        Product product = productRepository.save(
+                new Product("Hot product", null, BigDecimal.TEN, INITIAL_STOCK, category));
+
+        String email = "buyer+" + UUID.randomUUID() + "@example.com";
+        User buyer = userRepository.save(new User(email, "not-used", "Buyer", Role.ROLE_USER));
+        // principal такой же, какой строит JWT-фильтр из claims токена
+        UserDetailsImpl principal = new UserDetailsImpl(buyer.getId(), email, null, Role.ROLE_USER);
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            futures.add(executor.submit(() -> {
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(
+                                principal, null, principal.getAuthorities()));
+                try {
+                    start.await();
+                    orderService.create(singleItemOrder(product.getId()));
+                    succeeded.incrementAndGet();
+                } catch (BadRequestException ex) {
+                    rejected.incrementAndGet();
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        executor.shutdown();
+
+        double ordersPerSecond = ORDERS / (elapsedNanos / 1_000_000_000.0);
+        log.info("Concurrency test: {} orders, {} threads, succeeded={}, rejected={}, {} orders/sec",
+                ORDERS, THREADS, succeeded.get(), rejected.get(), Math.round(ordersPerSecond));
+
+        Product reloaded = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals(INITIAL_STOCK, succeeded.get(), "Должно пройти ровно столько заказов, сколько было на складе");
+        assertEquals(ORDERS - INITIAL_STOCK, rejected.get());
+        assertEquals(0, reloaded.getStock(), "Остаток не должен уйти в минус");
+    }
+
+    private static CreateOrderRequestDto singleItemOrder(Long productId) {
+        CreateOrderRequestDto.Item item = new CreateOrderRequestDto.Item();
+        item.setProductId(productId);
+        item.setQuantity(1);
+
+        CreateOrderRequestDto dto = new CreateOrderRequestDto();
+        dto.setItems(List.of(item));
+        return dto;
+    }
+}
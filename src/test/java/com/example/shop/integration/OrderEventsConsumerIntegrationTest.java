@@ -0,0 +1,157 @@
+package com.example.shop.integration;
+
+import com.example.shop.entity.Category;
+import com.example.shop.entity.Product;
+import com.example.shop.messaging.OrderCreatedEvent;
+import com.example.shop.messaging.OrderEventsConsumer;
+import com.example.shop.repository.CategoryRepository;
+import com.example.shop.repository.ProcessedMessageRepository;
+import com.example.shop.repository.ProductRepository;
+import com.example.shop.repository.ProductSalesRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+public class OrderEventsConsumerIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private ProcessedMessageRepository processedMessageRepository;
+
+    @Autowired
+    private ProductSalesRepository productSalesRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    // в BaseIntegrationTest слушатель выключен — вызываем onBatch напрямую, как это делает контейнер
+    private OrderEventsConsumer consumer;
+    private Channel channel;
+    private Product product;
+
+    @BeforeEach
+    void createConsumer() {
+        consumer = new OrderEventsConsumer(processedMessageRepository, productSalesRepository, transactionManager,
+                objectMapper, new SimpleMeterRegistry(), 250, Duration.ofDays(7));
+        channel = mock(Channel.class);
+
+        Category category = categoryRepository.save(new Category("Sales " + UUID.randomUUID(), "Consumer test"));
+        product = productRepository.save(new Product("Kettle", null, new BigDecimal("100.00"), 10, category));
+    }
+
+    @Test
+    @DisplayName("Повтор messageId в пачке и повторная доставка учитываются в product_sales один раз")
+    void duplicateMessagesShouldBeCountedOnce() throws Exception {
+        String first = UUID.randomUUID().toString();
+        String second = UUID.randomUUID().toString();
+
+        consumer.onBatch(List.of(
+                message(1, first, event(1L, product.getId(), 2)),
+                message(2, first, event(1L, product.getId(), 2)),
+                message(3, second, event(2L, product.getId(), 1))
+        ), channel);
+
+        verify(channel).basicAck(1, false);
+        verify(channel).basicAck(2, false);
+        verify(channel).basicAck(3, false);
+        assertSales(3, "300.00", 2);
+
+        // повторная доставка после обрыва соединения до ack
+        consumer.onBatch(List.of(message(4, first, event(1L, product.getId(), 2))), channel);
+
+        verify(channel).basicAck(4, false);
+        verifyNoMoreInteractions(channel);
+        assertSales(3, "300.00", 2);
+    }
+
+    @Test
+    @DisplayName("Нечитаемое сообщение отклоняется без возврата в очередь, остальные применяются")
+    void poisonMessageShouldBeDeadLettered() throws Exception {
+        Message poison = new Message("{not json".getBytes(), properties(1, UUID.randomUUID().toString()));
+
+        consumer.onBatch(List.of(
+                poison,
+                message(2, UUID.randomUUID().toString(), event(3L, product.getId(), 1))
+        ), channel);
+
+        verify(channel).basicNack(1, false, false);
+        verify(channel).basicAck(2, false);
+        verifyNoMoreInteractions(channel);
+        assertSales(1, "100.00", 1);
+    }
+
+    @Test
+    @DisplayName("Событие с несуществующим товаром: по одному отклоняется только оно")
+    void foreignKeyViolationShouldRejectOnlyOffendingMessage() throws Exception {
+        long missingProductId = product.getId() + 1_000_000;
+
+        consumer.onBatch(List.of(
+                message(1, UUID.randomUUID().toString(), event(4L, product.getId(), 1)),
+                message(2, UUID.randomUUID().toString(), event(5L, missingProductId, 1)),
+                message(3, UUID.randomUUID().toString(), event(6L, product.getId(), 2))
+        ), channel);
+
+        verify(channel).basicAck(1, false);
+        verify(channel).basicNack(2, false, false);
+        verify(channel).basicAck(3, false);
+        verifyNoMoreInteractions(channel);
+        assertSales(3, "300.00", 2);
+    }
+
+    private void assertSales(long quantity, String revenue, long orderCount) {
+        Map<String, Object> sales = jdbcTemplate.queryForMap(
+                "SELECT quantity, revenue, order_count FROM product_sales WHERE product_id = ?", product.getId());
+        assertThat(((Number) sales.get("quantity")).longValue()).isEqualTo(quantity);
+        assertThat((BigDecimal) sales.get("revenue")).isEqualByComparingTo(revenue);
+        assertThat(((Number) sales.get("order_count")).longValue()).isEqualTo(orderCount);
+    }
+
+    private Message message(long deliveryTag, String messageId, OrderCreatedEvent event) throws Exception {
+        return new Message(objectMapper.writeValueAsBytes(event), properties(deliveryTag, messageId));
+    }
+
+    private static MessageProperties properties(long deliveryTag, String messageId) {
+        MessageProperties properties = new MessageProperties();
+        properties.setDeliveryTag(deliveryTag);
+        properties.setMessageId(messageId);
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        return properties;
+    }
+
+    private static OrderCreatedEvent event(Long orderId, Long productId, int quantity) {
+        BigDecimal price = new BigDecimal("100.00");
+        return new OrderCreatedEvent(orderId, 1L, price.multiply(BigDecimal.valueOf(quantity)), LocalDateTime.now(),
+                List.of(new OrderCreatedEvent.Item(productId, quantity, price)));
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.shop.integration;
+
+import com.example.shop.entity.Category;
+import com.example.shop.entity.Order;
+import com.example.shop.entity.OrderItem;
+import com.example.shop.entity.Product;
+import com.example.shop.entity.User;
+import com.example.shop.entity.enums.OrderStatus;
+import com.example.shop.entity.enums.Role;
+import com.example.shop.repository.CategoryRepository;
+import com.example.shop.repository.OrderRepository;
+import com.example.shop.repository.ProductRepository;
+import com.example.shop.repository.UserRepository;
+import com.example.shop.security.UserDetailsImpl;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class OrderExportIntegrationTest extends BaseIntegrationTest {
+
+    private static final UserDetailsImpl ADMIN = new UserDetailsImpl(1L, "admin@example.com", null, Role.ROLE_ADMIN);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private Order order;
+    private Order emptyOrder;
+    private Product kettle;
+    private Product mug;
+
+    @BeforeEach
+    void createOrders() {
+        User buyer = userRepository.save(new User(
+                "export+" + UUID.randomUUID() + "@example.com", "not-used", "Buyer", Role.ROLE_USER));
+        Category category = categoryRepository.save(new Category("Export " + UUID.randomUUID(), "Export test"));
+        kettle = productRepository.save(new Product("Kettle", null, new BigDecimal("1999.90"), 10, category));
+        mug = productRepository.save(new Product("Mug", null, new BigDecimal("250.00"), 10, category));
+
+        order = newOrder(buyer, OrderStatus.NEW);
+        addItem(order, kettle, 1);
+        addItem(order, mug, 2);
+        order.setTotalPrice(new BigDecimal("2499.90"));
+        order = orderRepository.save(order);
+
+        emptyOrder = newOrder(buyer, OrderStatus.REJECTED);
+        emptyOrder.setStatusReason("Нет в наличии, \"Kettle\"");
+        emptyOrder.setTotalPrice(BigDecimal.ZERO);
+        emptyOrder = orderRepository.save(emptyOrder);
+    }
+
+    @Test
+    @DisplayName("GET /api/orders/export: NDJSON — заказ с позициями на строку, по возрастанию id")
+    void ndjsonExportShouldWriteOrderPerLine() throws Exception {
+        List<JsonNode> orders = Arrays.stream(export("ndjson", "application/x-ndjson").split("\n"))
+                .map(this::readTree)
+                .toList();
+
+        assertThat(orders).extracting(node -> node.get("id").asLong()).isSorted();
+        JsonNode exported = orders.stream()
+                .filter(node -> node.get("id").asLong() == order.getId())
+                .findFirst()
+                .orElseThrow();
+        assertThat(exported.get("status").asText()).isEqualTo("NEW");
+        assertThat(exported.get("totalPrice").decimalValue()).isEqualByComparingTo("2499.90");
+        assertThat(exported.get("items")).extracting(item -> item.get("productId").asLong())
+                .containsExactly(kettle.getId(), mug.getId());
+        assertThat(exported.get("items").get(1).get("quantity").asInt()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("GET /api/orders/export?format=csv: позиция на строку, заказ без позиций — одна строка")
+    void csvExportShouldWriteItemPerLine() throws Exception {
+        List<String> lines = Arrays.asList(export("csv", "text/csv").split("\r\n"));
+
+        assertThat(lines.get(0)).isEqualTo(
+                "order_id,user_id,status,status_reason,total_price,created_at,updated_at,product_id,quantity,price");
+        assertThat(lines).filteredOn(line -> line.startsWith(order.getId() + ","))
+                .extracting(line -> line.substring(line.lastIndexOf(',', line.lastIndexOf(',') - 1) + 1))
+                .containsExactly("1,1999.90", "2,250.00");
+        assertThat(lines).filteredOn(line -> line.startsWith(emptyOrder.getId() + ","))
+                .singleElement()
+                .satisfies(line -> assertThat(line)
+                        .contains(",REJECTED,\"Нет в наличии, \"\"Kettle\"\"\",")
+                        .endsWith(",,,"));
+    }
+
+    @Test
+    @DisplayName("GET /api/orders/export: свой таймаут асинхронного ответа вместо общего")
+    void exportShouldUseOwnAsyncTimeout() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/orders/export")
+                        .with(user(ADMIN)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofHours(1).toMillis());
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("GET /api/orders/export с неизвестным форматом возвращает 400")
+    void unknownFormatShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/orders/export")
+                        .with(user(ADMIN))
+                        .param("format", "xlsx"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String export(String format, String contentType) throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/orders/export")
+                        .with(user(ADMIN))
+                        .param("format", format))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(contentType))
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    private JsonNode readTree(String line) {
+        try {
+            return objectMapper.readTree(line);
+        } catch (Exception ex) {
+            throw new AssertionError("Invalid NDJSON line: " + line, ex);
+        }
+    }
+
+    private static Order newOrder(User buyer, OrderStatus status) {
+        Order order = new Order();
+        order.setUser(buyer);
+        order.setStatus(status);
+        return order;
+    }
+
+    private static void addItem(Order order, Product product, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProduct(product);
+        item.setPrice(product.getPrice());
+        item.setQuantity(quantity);
+        order.getItems().add(item);
+    }
+}
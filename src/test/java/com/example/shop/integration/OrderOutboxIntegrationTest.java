@@ -0,0 +1,119 @@
+package com.example.shop.integration;
+
+import com.example.shop.dto.order.CreateOrderRequestDto;
+import com.example.shop.entity.Category;
+import com.example.shop.entity.Product;
+import com.example.shop.entity.User;
+import com.example.shop.entity.enums.Role;
+import com.example.shop.exception.BadRequestException;
+import com.example.shop.messaging.OrderCreatedEvent;
+import com.example.shop.repository.CategoryRepository;
+import com.example.shop.repository.ProductRepository;
+import com.example.shop.repository.UserRepository;
+import com.example.shop.security.UserDetailsImpl;
+import com.example.shop.service.OrderService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OrderOutboxIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User buyer;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        Category category = categoryRepository.save(new Category("Outbox " + UUID.randomUUID(), "Outbox test"));
+        product = productRepository.save(new Product("Kettle", null, new BigDecimal("1999.90"), 2, category));
+
+        String email = "outbox+" + UUID.randomUUID() + "@example.com";
+        buyer = userRepository.save(new User(email, "not-used", "Buyer", Role.ROLE_USER));
+        UserDetailsImpl principal = new UserDetailsImpl(buyer.getId(), email, null, Role.ROLE_USER);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Созданный заказ пишет событие OrderCreated в outbox_events")
+    void createdOrderShouldWriteOutboxEvent() throws Exception {
+        Long orderId = orderService.create(order(2)).getId();
+
+        List<Map<String, Object>> events = buyerEvents();
+        assertThat(events).singleElement().satisfies(event -> {
+            assertThat(((Number) event.get("aggregate_id")).longValue()).isEqualTo(orderId);
+            assertThat(event.get("event_type")).isEqualTo(OrderCreatedEvent.TYPE);
+        });
+        JsonNode payload = objectMapper.readTree((String) events.get(0).get("payload"));
+        assertThat(payload.get("orderId").asLong()).isEqualTo(orderId);
+        assertThat(payload.get("items").get(0).get("productId").asLong()).isEqualTo(product.getId());
+    }
+
+    @Test
+    @DisplayName("Событие откатывается вместе с заказом, если резервирование не удалось")
+    void failedReservationShouldRollBackOutboxEvent() {
+        // заказ и событие уже записаны к моменту резервирования — откатиться должны оба
+        assertThrows(BadRequestException.class, () -> orderService.create(order(3)));
+
+        assertThat(buyerEvents()).isEmpty();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM orders WHERE user_id = ?", Long.class, buyer.getId())).isZero();
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getStock()).isEqualTo(2);
+    }
+
+    // relay в BaseIntegrationTest выключен — строки остаются в outbox_events
+    private List<Map<String, Object>> buyerEvents() {
+        return jdbcTemplate.queryForList("""
+                SELECT aggregate_id, event_type, payload
+                  FROM outbox_events
+                 WHERE (payload::jsonb ->> 'userId')::bigint = ?
+                """, buyer.getId());
+    }
+
+    private CreateOrderRequestDto order(int quantity) {
+        CreateOrderRequestDto.Item item = new CreateOrderRequestDto.Item();
+        item.setProductId(product.getId());
+        item.setQuantity(quantity);
+
+        CreateOrderRequestDto dto = new CreateOrderRequestDto();
+        dto.setItems(List.of(item));
+        return dto;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.shop.integration;
+
+import com.example.shop.dto.order.CreateOrderRequestDto;
+import com.example.shop.entity.Category;
+import com.example.shop.entity.Order;
+import com.example.shop.entity.Product;
+import com.example.shop.entity.User;
+import com.example.shop.entity.enums.OrderStatus;
+import com.example.shop.entity.enums.Role;
+import com.example.shop.messaging.OrderCreatedEvent;
+import com.example.shop.messaging.OrderEventsOutbox;
+import com.example.shop.repository.CategoryRepository;
+import com.example.shop.repository.OrderRepository;
+import com.example.shop.repository.ProductRepository;
+import com.example.shop.repository.UserRepository;
+import com.example.shop.security.UserDetailsImpl;
+import com.example.shop.service.InventoryService;
+import com.example.shop.service.OrderService;
+import com.example.shop.service.impl.PendingOrderWorker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PendingOrderWorkerIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderEventsOutbox orderEventsOutbox;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // в BaseIntegrationTest обработчик выключен — проход запускаем вручную
+    private PendingOrderWorker worker;
+    private Product kettle;
+    private Product mug;
+
+    @BeforeEach
+    void setUp() {
+        worker = new PendingOrderWorker(orderRepository, inventoryService, orderEventsOutbox, transactionManager,
+                jdbcTemplate, new SimpleMeterRegistry(), 50);
+
+        Category category = categoryRepository.save(new Category("Async " + UUID.randomUUID(), "Async checkout test"));
+        kettle = productRepository.save(new Product("Kettle", null, new BigDecimal("1999.90"), 5, category));
+        mug = productRepository.save(new Product("Mug", null, new BigDecimal("250.00"), 1, category));
+
+        String email = "async+" + UUID.randomUUID() + "@example.com";
+        User buyer = userRepository.save(new User(email, "not-used", "Buyer", Role.ROLE_USER));
+        UserDetailsImpl principal = new UserDetailsImpl(buyer.getId(), email, null, Role.ROLE_USER);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("PENDING-заказ с остатками переходит в NEW и пишет событие в outbox")
+    void pendingOrderWithStockShouldBecomeNew() {
+        Long orderId = orderService.submit(order(item(kettle, 2), item(mug, 1))).getId();
+
+        worker.process();
+
+        Order processed = orderRepository.findById(orderId).orElseThrow();
+        assertThat(processed.getStatus()).isEqualTo(OrderStatus.NEW);
+        assertThat(processed.getStatusReason()).isNull();
+        assertThat(processed.getUpdatedAt()).isAfterOrEqualTo(processed.getCreatedAt());
+        assertThat(stock(kettle)).isEqualTo(3);
+        assertThat(stock(mug)).isZero();
+        assertThat(outboxEvents(orderId)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("PENDING-заказ без остатков переходит в REJECTED, списание по другой позиции откатывается")
+    void pendingOrderWithShortageShouldBeRejected() {
+        Long orderId = orderService.submit(order(item(kettle, 2), item(mug, 3))).getId();
+
+        worker.process();
+
+        Order processed = orderRepository.findById(orderId).orElseThrow();
+        assertThat(processed.getStatus()).isEqualTo(OrderStatus.REJECTED);
+        assertThat(processed.getStatusReason()).contains("product id=" + mug.getId());
+        assertThat(stock(kettle)).isEqualTo(5);
+        assertThat(stock(mug)).isEqualTo(1);
+        assertThat(outboxEvents(orderId)).isZero();
+    }
+
+    private int stock(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow().getStock();
+    }
+
+    private long outboxEvents(Long orderId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM outbox_events WHERE aggregate_id = ? AND event_type = ?",
+                Long.class, orderId, OrderCreatedEvent.TYPE);
+    }
+
+    private static CreateOrderRequestDto order(CreateOrderRequestDto.Item... items) {
+        CreateOrderRequestDto dto = new CreateOrderRequestDto();
+        dto.setItems(Arrays.asList(items));
+        return dto;
+    }
+
+    private static CreateOrderRequestDto.Item item(Product product, int quantity) {
+        CreateOrderRequestDto.Item item = new CreateOrderRequestDto.Item();
+        item.setProductId(product.getId());
+        item.setQuantity(quantity);
+        return item;
+    }
+}
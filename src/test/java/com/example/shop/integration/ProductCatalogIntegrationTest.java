@@ -0,0 +1,93 @@
+package com.example.shop.integration;
+
+import com.example.shop.entity.Category;
+import com.example.shop.entity.Product;
+import com.example.shop.repository.CategoryRepository;
+import com.example.shop.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ProductCatalogIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Category category;
+    private Product cheap;
+    private Product middle;
+    private Product expensive;
+
+    @BeforeEach
+    void createCatalog() {
+        category = categoryRepository.save(new Category("Catalog " + UUID.randomUUID(), "Catalog test"));
+        cheap = productRepository.save(new Product("Cheap", null, new BigDecimal("500.00"), 10, category));
+        middle = productRepository.save(new Product("Middle", null, new BigDecimal("2000.00"), 0, category));
+        expensive = productRepository.save(new Product("Expensive", null, new BigDecimal("7000.00"), 3, category));
+
+        Product inactive = new Product("Inactive", null, new BigDecimal("600.00"), 5, category);
+        inactive.setActive(false);
+        productRepository.save(inactive);
+    }
+
+    @Test
+    @DisplayName("GET /api/products/catalog: фильтр по категории, сортировка по цене и счётчики ценовых диапазонов")
+    void catalogShouldFilterSortAndCountPriceBuckets() throws Exception {
+        mockMvc.perform(get("/api/products/catalog")
+                        .param("categoryId", category.getId().toString())
+                        .param("sort", "price_desc")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.content[*].id").value(contains(
+                        expensive.getId().intValue(), middle.getId().intValue(), cheap.getId().intValue())))
+                .andExpect(jsonPath("$.prices[*].from").value(contains(0, 1000, 5000)))
+                .andExpect(jsonPath("$.prices[*].count").value(contains(1, 1, 1)));
+    }
+
+    @Test
+    @DisplayName("GET /api/products/catalog: счётчик категории не зависит от фильтра по категории, но учитывает цену и наличие")
+    void facetsShouldIgnoreOwnFilterOnly() throws Exception {
+        mockMvc.perform(get("/api/products/catalog")
+                        .param("categoryId", category.getId().toString())
+                        .param("priceFrom", "1000")
+                        .param("inStock", "true")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[*].id").value(contains(expensive.getId().intValue())))
+                .andExpect(jsonPath("$.categories[?(@.categoryId == " + category.getId() + ")].count")
+                        .value(contains(1)))
+                // ценовые диапазоны — без фильтра по цене: в наличии дешёвый и дорогой
+                .andExpect(jsonPath("$.prices[*].from").value(contains(0, 5000)));
+    }
+
+    @Test
+    @DisplayName("GET /api/products/catalog с неизвестной сортировкой или пустым диапазоном цены возвращает 400")
+    void invalidParametersShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/products/catalog").param("sort", "rating"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/products/catalog")
+                        .param("priceFrom", "100")
+                        .param("priceTo", "100"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.shop.integration;
+
+import com.example.shop.entity.Category;
+import com.example.shop.entity.Product;
+import com.example.shop.entity.enums.Role;
+import com.example.shop.repository.CategoryRepository;
+import com.example.shop.repository.ProductRepository;
+import com.example.shop.security.UserDetailsImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ProductImportIntegrationTest extends BaseIntegrationTest {
+
+    private static final UserDetailsImpl ADMIN = new UserDetailsImpl(1L, "admin@example.com", null, Role.ROLE_ADMIN);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Category category;
+
+    @BeforeEach
+    void createCategory() {
+        category = categoryRepository.save(new Category("Import " + UUID.randomUUID(), "Import test"));
+    }
+
+    @Test
+    @DisplayName("POST /api/products/import (CSV): строки вставляются одной пачкой, ошибочные попадают в отчёт с номером строки")
+    void csvImportShouldInsertValidRowsAndReportErrors() throws Exception {
+        String csv = """
+                name,price,stock,category,description
+                Чайник,1999.90,5,"%1$s","Объём 1,7 л
+                стекло"
+                Кружка,abc,1,"%1$s",
+                Ложка,10,1,Нет такой категории,
+                Тарелка,250,0,"%1$s",
+                """.formatted(category.getName());
+        resetQueryCount();
+
+        mockMvc.perform(post("/api/products/import")
+                        .with(user(ADMIN))
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.processed").value(4))
+                .andExpect(jsonPath("$.inserted").value(2))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.errors[*].line").value(contains(4, 5)));
+
+        // категории, блок id из последовательности, INSERT ... FROM unnest
+        assertMaxQueries(3);
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT name, description, price, stock, active FROM products WHERE category_id = ? ORDER BY id",
+                category.getId());
+        assertThat(rows).extracting(row -> row.get("name")).containsExactly("Чайник", "Тарелка");
+        assertThat(rows.get(0).get("description")).isEqualTo("Объём 1,7 л\nстекло");
+        assertThat((BigDecimal) rows.get(0).get("price")).isEqualByComparingTo("1999.90");
+        assertThat(rows.get(1).get("active")).isEqualTo(true);
+    }
+
+    @Test
+    @DisplayName("POST /api/products/import (NDJSON): строка с id перезаписывает товар, неизвестный id — ошибка строки")
+    void ndjsonImportShouldUpdateExistingProducts() throws Exception {
+        Product product = productRepository.save(new Product("Old name", null, new BigDecimal("10.00"), 1, category));
+        String ndjson = """
+                {"id": %1$d, "name": "New name", "price": 19.99, "stock": 7, "category": "%2$s"}
+                {"id": %3$d, "name": "Ghost", "price": 1, "stock": 1, "category": "%2$s"}
+                not json
+                """.formatted(product.getId(), category.getName(), Long.MAX_VALUE);
+
+        mockMvc.perform(post("/api/products/import")
+                        .with(user(ADMIN))
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.errors[*].line").value(contains(2, 3)));
+
+        Product updated = productRepository.findById(product.getId()).orElseThrow();
+        assertThat(updated.getName()).isEqualTo("New name");
+        assertThat(updated.getPrice()).isEqualByComparingTo("19.99");
+        assertThat(updated.getStock()).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("POST /api/products/import: слишком длинная запись (в т.ч. незакрытая кавычка) — ошибка строки, импорт продолжается")
+    void tooLongRecordsShouldFailOnlyTheirRows() throws Exception {
+        String filler = "x".repeat(70_000);
+        String csv = """
+                name,price,stock,category
+                Битая,"10,1,%1$s
+                %2$s
+                Чашка,10,1,"%1$s"
+                """.formatted(category.getName(), filler);
+
+        mockMvc.perform(post("/api/products/import")
+                        .with(user(ADMIN))
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[*].line").value(contains(2)));
+
+        String ndjson = """
+                {"name": "%2$s", "price": 1, "stock": 1, "category": "%1$s"}
+                {"name": "Блюдце", "price": 1, "stock": 1, "category": "%1$s"}
+                """.formatted(category.getName(), filler);
+
+        mockMvc.perform(post("/api/products/import")
+                        .with(user(ADMIN))
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[*].line").value(contains(1)));
+
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT name FROM products WHERE category_id = ? ORDER BY id", String.class, category.getId()))
+                .containsExactly("Чашка", "Блюдце");
+    }
+
+    @Test
+    @DisplayName("POST /api/products/import: CSV без обязательной колонки — 400")
+    void csvImportShouldRejectMissingColumns() throws Exception {
+        mockMvc.perform(post("/api/products/import")
+                        .with(user(ADMIN))
+                        .contentType("text/csv")
+                        .content("name,price\nЧайник,10\n"))
+                .andExpect(status().isBadRequest());
+    }
+}
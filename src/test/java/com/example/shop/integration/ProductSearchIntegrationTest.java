@@ -0,0 +1,126 @@
+package com.example.shop.integration;
+
+import com.example.shop.entity.Category;
+import com.example.shop.entity.Product;
+import com.example.shop.repository.CategoryRepository;
+import com.example.shop.repository.ProductRepository;
+import com.example.shop.repository.ProductRepositoryCustom;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ProductSearchIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    // уникальное слово, чтобы не зависеть от товаров других тестов
+    private String word;
+    private Product inName;
+    private Product inDescription;
+
+    @BeforeEach
+    void createProducts() {
+        word = "w" + UUID.randomUUID().toString().replace("-", "");
+        Category category = categoryRepository.save(
+                new Category("Search " + UUID.randomUUID(), "Search test"));
+
+        inDescription = productRepository.save(
+                new Product("Чайник", "Стальной чайник " + word, BigDecimal.TEN, 10, category));
+        inName = productRepository.save(
+                new Product("Кружка " + word, "Керамическая кружка", BigDecimal.ONE, 10, category));
+
+        Product inactive = new Product("Тарелка " + word, null, BigDecimal.ONE, 10, category);
+        inactive.setActive(false);
+        productRepository.save(inactive);
+    }
+
+    @Test
+    @DisplayName("GET /api/products/search: совпадение в названии выше совпадения в описании, неактивные не найдены")
+    void searchShouldRankNameMatchesFirstAndSkipInactive() throws Exception {
+        mockMvc.perform(get("/api/products/search")
+                        .param("q", word)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.content[*].id").value(contains(
+                        inName.getId().intValue(), inDescription.getId().intValue())));
+    }
+
+    @Test
+    @DisplayName("GET /api/products/search: словоформы находятся стеммером, минус-слово исключает товар")
+    void searchShouldUseStemmingAndExclusion() throws Exception {
+        mockMvc.perform(get("/api/products/search")
+                        .param("q", "кружки " + word)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id").value(contains(inName.getId().intValue())));
+
+        mockMvc.perform(get("/api/products/search")
+                        .param("q", word + " -чайник")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id").value(contains(inName.getId().intValue())));
+    }
+
+    @Test
+    @DisplayName("GET /api/products/search: страница за последней пустая, но totalElements сохраняется")
+    void pageBeyondLastShouldKeepTotal() throws Exception {
+        mockMvc.perform(get("/api/products/search")
+                        .param("q", word)
+                        .param("page", "5")
+                        .param("size", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isEmpty())
+                .andExpect(jsonPath("$.totalElements").value(2));
+    }
+
+    @Test
+    @DisplayName("Совпадений больше лимита кандидатов: ранжируются самые новые, результат повторяем")
+    void candidatesOverLimitShouldBeNewestProducts() {
+        for (int i = 0; i < 3; i++) {
+            ProductRepositoryCustom.SearchHits hits = productRepository.searchActive(word, 0, 10, 1);
+            assertThat(hits.ids()).containsExactly(inName.getId());
+            assertThat(hits.total()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("GET /api/products/search только с исключениями или стоп-словами возвращает 400")
+    void queryWithoutSearchableWordsShouldReturnBadRequest() throws Exception {
+        for (String query : new String[]{"-" + word, "-чайник -" + word, "и"}) {
+            mockMvc.perform(get("/api/products/search")
+                            .param("q", query)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    @DisplayName("GET /api/products/search с пустым запросом возвращает 400")
+    void blankQueryShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/products/search")
+                        .param("q", "   ")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+}
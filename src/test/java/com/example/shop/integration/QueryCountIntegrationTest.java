@@ -0,0 +1,153 @@
+package com.example.shop.integration;
+
+import com.example.shop.entity.Category;
+import com.example.shop.entity.Product;
+import com.example.shop.entity.User;
+import com.example.shop.entity.enums.Role;
+import com.example.shop.repository.CategoryRepository;
+import com.example.shop.repository.ProductRepository;
+import com.example.shop.repository.UserRepository;
+import com.example.shop.security.UserDetailsImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Число SQL-запросов на эндпоинт не зависит от размера данных: N+1 (ленивые товары в позициях,
+ * поиск товара на каждую позицию корзины) сразу ломает эти проверки.
+ */
+public class QueryCountIntegrationTest extends BaseIntegrationTest {
+
+    private static final int ITEMS_PER_ORDER = 20;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private UserDetailsImpl buyer;
+    private List<Product> products;
+
+    @BeforeEach
+    void createCatalogAndBuyer() {
+        Category category = categoryRepository.save(
+                new Category("Query count " + UUID.randomUUID(), "Query count test"));
+        products = productRepository.saveAll(IntStream.range(0, ITEMS_PER_ORDER)
+                .mapToObj(i -> new Product("Product " + i, null, BigDecimal.TEN, 1_000, category))
+                .toList());
+
+        String email = "queries+" + UUID.randomUUID() + "@example.com";
+        User user = userRepository.save(new User(email, "not-used", "Buyer", Role.ROLE_USER));
+        buyer = new UserDetailsImpl(user.getId(), email, null, Role.ROLE_USER);
+    }
+
+    @Test
+    @DisplayName("Оформление заказа: товары корзины загружаются одним запросом, позиции вставляются одним батчем")
+    void createOrderShouldUseFixedNumberOfQueries() throws Exception {
+        resetQueryCount();
+
+        mockMvc.perform(post("/api/orders")
+                        .with(user(buyer))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(orderJson()))
+                .andExpect(status().isOk());
+
+        // товары (IN), заказ, позиции одним JDBC batch, outbox, списание остатков и не больше
+        // двух nextval (блок id заказов и позиций) — число запросов не зависит от числа позиций
+        assertMaxQueries(7);
+    }
+
+    @Test
+    @DisplayName("Заказ по id и список своих заказов читают позиции и товары без N+1")
+    void readOrdersShouldNotQueryPerItem() throws Exception {
+        long orderId = createOrder();
+        createOrder();
+
+        resetQueryCount();
+        mockMvc.perform(get("/api/orders/{id}", orderId).with(user(buyer)))
+                .andExpect(status().isOk());
+        assertMaxQueries(1);
+
+        resetQueryCount();
+        mockMvc.perform(get("/api/orders/my").with(user(buyer)))
+                .andExpect(status().isOk());
+        assertMaxQueries(3);
+
+        resetQueryCount();
+        mockMvc.perform(get("/api/orders/my/summary").with(user(buyer)))
+                .andExpect(status().isOk());
+        assertMaxQueries(2);
+    }
+
+    @Test
+    @DisplayName("Каталог: товар, страница товаров, каталог с фасетами и категории")
+    void catalogReadsShouldUseFixedNumberOfQueries() throws Exception {
+        resetQueryCount();
+        mockMvc.perform(get("/api/products/{id}", products.get(0).getId()).with(user(buyer)))
+                .andExpect(status().isOk());
+        assertMaxQueries(1);
+
+        resetQueryCount();
+        mockMvc.perform(get("/api/products").param("size", "20").with(user(buyer)))
+                .andExpect(status().isOk());
+        assertMaxQueries(2);
+
+        // фасеты (GROUPING SETS, вместе с total), id страницы, товары
+        resetQueryCount();
+        mockMvc.perform(get("/api/products/catalog")
+                        .param("categoryId", products.get(0).getCategory().getId().toString())
+                        .param("sort", "price_asc")
+                        .with(user(buyer)))
+                .andExpect(status().isOk());
+        assertMaxQueries(3);
+
+        resetQueryCount();
+        mockMvc.perform(get("/api/categories").with(user(buyer)))
+                .andExpect(status().isOk());
+        assertMaxQueries(2);
+    }
+
+    private long createOrder() throws Exception {
+        String body = mockMvc.perform(post("/api/orders")
+                        .with(user(buyer))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(orderJson()))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    private String orderJson() throws Exception {
+        List<Object> items = products.stream()
+                .<Object>map(product -> Map.of("productId", product.getId(), "quantity", 1))
+                .toList();
+        return objectMapper.writeValueAsString(Map.of("items", items));
+    }
+}
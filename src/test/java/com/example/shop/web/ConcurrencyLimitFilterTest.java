@@ -0,0 +1,71 @@
+package com.example.shop.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+            new ObjectMapper().registerModule(new JavaTimeModule()), meterRegistry, 1, Duration.ofMillis(50));
+
+    @Test
+    @DisplayName("Разрешение не освободилось за max-wait: 503 с Retry-After, цепочка не вызывается")
+    void waitingPastMaxWaitShouldReturnServiceUnavailable() throws Exception {
+        MockHttpServletRequest async = startAsync();
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(apiRequest(), response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(response.getContentAsString()).contains("Server is busy");
+        assertThat(chain.getRequest()).isNull();
+        assertThat(meterRegistry.counter("http.server.concurrency.rejected").count()).isEqualTo(1);
+
+        ((MockAsyncContext) async.getAsyncContext()).complete();
+    }
+
+    @Test
+    @DisplayName("Асинхронный запрос держит разрешение до завершения асинхронной обработки")
+    void asyncRequestShouldHoldPermitUntilCompleted() throws Exception {
+        MockHttpServletRequest async = startAsync();
+
+        MockHttpServletResponse busy = new MockHttpServletResponse();
+        filter.doFilter(apiRequest(), busy, new MockFilterChain());
+        assertThat(busy.getStatus()).isEqualTo(503);
+
+        ((MockAsyncContext) async.getAsyncContext()).complete();
+
+        MockHttpServletResponse served = new MockHttpServletResponse();
+        filter.doFilter(apiRequest(), served, new MockFilterChain());
+        assertThat(served.getStatus()).isEqualTo(200);
+    }
+
+    // запрос, обработчик которого перешёл в асинхронный режим, — поток Tomcat уже вышел из фильтра
+    private MockHttpServletRequest startAsync() throws Exception {
+        MockHttpServletRequest request = apiRequest();
+        request.setAsyncSupported(true);
+        filter.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> req.startAsync(req, res));
+        assertThat(request.isAsyncStarted()).isTrue();
+        return request;
+    }
+
+    private static MockHttpServletRequest apiRequest() {
+        return new MockHttpServletRequest("GET", "/api/orders/export");
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.shop.web;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QueryCountFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final QueryCountFilter filter = new QueryCountFilter(meterRegistry, 20);
+
+    @Test
+    @DisplayName("Запрос, упавший исключением, тоже попадает в метрики SQL")
+    void failedRequestShouldStillBeRecorded() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders/1");
+
+        assertThrows(ServletException.class, () -> filter.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> {
+                    throw new ServletException("handler failed");
+                }));
+
+        assertThat(meterRegistry.get("http.server.requests.queries").summary().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("http.server.requests.jdbc").timer().count()).isEqualTo(1);
+        assertThat(request.getAttribute(QueryCountFilter.BUDGET_ATTRIBUTE)).isEqualTo(QueryCountFilter.BUDGET_WITHIN);
+    }
+}